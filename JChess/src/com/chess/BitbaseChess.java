@@ -0,0 +1,67 @@
+package com.chess;
+
+import com.chess.engine.player.ai.BitbaseGenerator;
+import com.chess.engine.player.ai.Bitbases;
+import com.chess.engine.player.ai.EndgameMaterial;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Command line bitbase generation.
+ *
+ *   BitbaseChess [options] [ending ...]   generate the endings named, KPK KRK KQK KBNK, or all of them
+ *
+ * Options:
+ *   -threads <n>   generate on n threads, one per processor by default
+ *   -dir <path>    where the files go, the directory Bitbases looks in by default
+ *
+ * */
+
+public class BitbaseChess {
+
+    public static void main(String[] args) throws IOException {
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path directory = Paths.get(Bitbases.DEFAULT_DIRECTORY);
+        final List<EndgameMaterial> endings = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("-dir") && i + 1 < args.length){
+                directory = Paths.get(args[++i]);
+            } else {
+                endings.add(EndgameMaterial.valueOf(args[i].toUpperCase()));
+            }
+        }
+        if(endings.isEmpty()){
+            endings.addAll(Arrays.asList(EndgameMaterial.values()));
+        }
+
+        final BitbaseGenerator generator = new BitbaseGenerator(threads);
+        try {
+            System.out.println("Threads: " + generator.getParallelism());
+            for(final EndgameMaterial material : endings){
+                final long start = System.nanoTime();
+                final long[] bits = generator.generate(material);
+                final long elapsed = System.nanoTime() - start;
+                final Path file = generator.write(material, directory);
+
+                final int placements = material.getPlacementCount();
+                System.out.println(String.format("%-5s %9d won to move %9d lost to move %8d ms  %s",
+                        material, BitbaseGenerator.countWins(bits, 0, placements),
+                        BitbaseGenerator.countWins(bits, placements, 2 * placements),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), file));
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+}
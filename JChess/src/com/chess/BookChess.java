@@ -0,0 +1,70 @@
+package com.chess;
+
+import com.chess.engine.player.ai.OpeningBook;
+import com.chess.pgn.OpeningBookBuilder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Command line opening book builder.
+ *
+ *   BookChess [options] [pgn file ...]   replay the games, every file in ./pgn by default, into a book
+ *
+ * Options:
+ *   -plies <n>    how many plies of each game go in the book
+ *   -out <path>   the book file, the one the game opens by default
+ *
+ * */
+
+public class BookChess {
+
+    private static final String PGN_DIRECTORY = "./pgn";
+
+    public static void main(String[] args) throws Exception {
+
+        int maxPlies = OpeningBookBuilder.DEFAULT_MAX_PLIES;
+        Path out = Paths.get(OpeningBook.DEFAULT_FILE);
+        final List<String> files = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-plies") && i + 1 < args.length){
+                maxPlies = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("-out") && i + 1 < args.length){
+                out = Paths.get(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if(files.isEmpty()){
+            final File[] pgnFiles = new File(PGN_DIRECTORY).listFiles((directory, name) -> name.endsWith(".pgn"));
+            if(pgnFiles != null){
+                Arrays.sort(pgnFiles);
+                for(final File pgnFile : pgnFiles){
+                    files.add(pgnFile.getPath());
+                }
+            }
+        }
+
+        final long start = System.nanoTime();
+        final OpeningBookBuilder builder = new OpeningBookBuilder(maxPlies);
+        for(final String file : files){
+            builder.addFile(file);
+            System.out.println(file + ": " + builder.getGameCount() + " games so far");
+        }
+        final int entries = builder.write(out);
+
+        System.out.println();
+        System.out.println("Games: " + builder.getGameCount() + " (" + builder.getSkippedCount() + " without a result skipped)");
+        System.out.println("Positions: " + builder.getPositionCount());
+        System.out.println("Entries: " + entries);
+        System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        System.out.println("Book: " + out);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.chess;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.ParallelPerft;
+import com.chess.engine.board.Perft;
+import com.chess.pgn.FenUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Command line perft.
+ *
+ *   PerftChess [options] <fen> <depth>       divide counts per root move, total nodes, time and nodes per second
+ *   PerftChess [options] suite [max depth]   the standard positions checked against their published counts
+ *
+ * Options:
+ *   -threads <n>   count on a ForkJoinPool of n threads instead of walking Boards one move at a time
+ *   -cache <mb>    the size of each thread's transposition cache when counting with threads
+ *
+ * The FEN may be passed unquoted, everything before the depth is joined back together.
+ *
+ * */
+
+public class PerftChess {
+
+    private static final int DEFAULT_SUITE_DEPTH = 4;
+
+    public static void main(String[] args){
+
+        int threads = 0;
+        int cacheMegaBytes = ParallelPerft.DEFAULT_CACHE_MB;
+        final List<String> arguments = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            } else if(args[i].equals("-cache") && i + 1 < args.length){
+                cacheMegaBytes = Integer.parseInt(args[++i]);
+            } else {
+                arguments.add(args[i]);
+            }
+        }
+
+        final ParallelPerft parallelPerft = threads > 0 ? new ParallelPerft(threads, cacheMegaBytes) : null;
+        try {
+            System.exit(run(arguments, parallelPerft));
+        } finally {
+            if(parallelPerft != null){
+                parallelPerft.shutdown();
+            }
+        }
+    }
+
+    private static int run(final List<String> arguments, final ParallelPerft parallelPerft) {
+
+        if(arguments.size() >= 1 && arguments.get(0).equals("suite")){
+            final int maxDepth = arguments.size() > 1 ? Integer.parseInt(arguments.get(1)) : DEFAULT_SUITE_DEPTH;
+            return runSuite(maxDepth, parallelPerft) ? 0 : 1;
+        }
+
+        if(arguments.size() < 2){
+            System.out.println("usage: PerftChess [-threads n] [-cache mb] <fen> <depth>");
+            System.out.println("       PerftChess [-threads n] [-cache mb] suite [max depth]");
+            return 2;
+        }
+
+        final String fen = String.join(" ", arguments.subList(0, arguments.size() - 1));
+        final int depth = Integer.parseInt(arguments.get(arguments.size() - 1));
+        runDivide(FenUtilities.createGameFromFEN(fen), depth, parallelPerft);
+        return 0;
+    }
+
+    private static void runDivide(final Board board, final int depth, final ParallelPerft parallelPerft) {
+
+        final long start = System.nanoTime();
+        final Map<Move, Long> divide = parallelPerft != null ? parallelPerft.divide(board, depth) : Perft.divide(board, depth);
+        final long elapsed = System.nanoTime() - start;
+
+        long nodes = 0;
+        for(final Map.Entry<Move, Long> entry : divide.entrySet()){
+            System.out.println(PackedMove.toString(entry.getKey().toPackedMove()) + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+
+        System.out.println();
+        System.out.println("Moves: " + divide.size());
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+        System.out.println("NPS: " + nodesPerSecond(nodes, elapsed));
+    }
+
+    private static boolean runSuite(final int maxDepth, final ParallelPerft parallelPerft) {
+
+        if(parallelPerft != null){
+            System.out.println("Threads: " + parallelPerft.getParallelism());
+        }
+
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+
+        for(final Perft.PerftPosition position : Perft.STANDARD_SUITE){
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            for(int depth = 1; depth <= Math.min(maxDepth, position.getMaxDepth()); depth++){
+
+                final long start = System.nanoTime();
+                final long nodes = parallelPerft != null ? parallelPerft.perft(board, depth) : Perft.perft(board, depth);
+                final long elapsed = System.nanoTime() - start;
+
+                final boolean correct = nodes == position.getNodeCount(depth);
+                passed &= correct;
+                totalNodes += nodes;
+                totalTime += elapsed;
+
+                System.out.println(String.format("%-15s depth %d %12d %s %8d ms %10d nps",
+                        position.getName(), depth, nodes,
+                        correct ? "ok  " : "FAIL (expected " + position.getNodeCount(depth) + ")",
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), nodesPerSecond(nodes, elapsed)));
+            }
+        }
+
+        System.out.println();
+        System.out.println("Nodes: " + totalNodes);
+        System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(totalTime) + " ms");
+        System.out.println("NPS: " + nodesPerSecond(totalNodes, totalTime));
+        System.out.println(passed ? "All counts match" : "Some counts do NOT match");
+        return passed;
+    }
+
+    private static long nodesPerSecond(final long nodes, final long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : nodes * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+}
@@ -37,6 +37,11 @@ public enum Alliance {
         public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
             return whitePlayer;
         }
+
+        @Override
+        public Alliance getOpponent() {
+            return BLACK;
+        }
     },
     BLACK {
         @Override
@@ -68,6 +73,11 @@ public enum Alliance {
         public Player choosePlayer(final WhitePlayer whitePlayer, final BlackPlayer blackPlayer) {
             return blackPlayer;
         }
+
+        @Override
+        public Alliance getOpponent() {
+            return WHITE;
+        }
     };
 
     public abstract int getDirection();
@@ -78,4 +88,6 @@ public enum Alliance {
     public abstract boolean isPawnPromotionSquare(int position);
 
     public abstract Player choosePlayer(WhitePlayer whitePlayer, BlackPlayer blackPlayer);
+
+    public abstract Alliance getOpponent();
 }
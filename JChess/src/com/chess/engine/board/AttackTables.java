@@ -0,0 +1,143 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+
+/**
+ *
+ * Per tile target bitboards for the non sliding pieces, built once when the class loads.
+ *
+ * Offsets are applied by row and column so nothing wraps around the board edge,
+ * which is what the column exclusion checks used to guard against. The between and
+ * line tables give the rays used for check blocking and pins.
+ *
+ * */
+
+public final class AttackTables {
+
+    private static final int[][] KNIGHT_OFFSETS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = initTable(KNIGHT_OFFSETS);
+    private static final long[] KING_ATTACKS = initTable(KING_OFFSETS);
+
+    private static final long[][] PAWN_ATTACKS = {
+            initTable(new int[][]{{Alliance.WHITE.getDirection(), -1}, {Alliance.WHITE.getDirection(), 1}}),
+            initTable(new int[][]{{Alliance.BLACK.getDirection(), -1}, {Alliance.BLACK.getDirection(), 1}})
+    };
+
+    private static final long[][] PAWN_PUSHES = {
+            initTable(new int[][]{{Alliance.WHITE.getDirection(), 0}}),
+            initTable(new int[][]{{Alliance.BLACK.getDirection(), 0}})
+    };
+
+    private static final long[][] PAWN_JUMPS = {
+            initPawnJumps(Alliance.WHITE, BitBoards.SECOND_RANK),
+            initPawnJumps(Alliance.BLACK, BitBoards.SEVENTH_RANK)
+    };
+
+    private static final long[][] BETWEEN = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+    private static final long[][] LINE = new long[BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+
+    static {
+        initRays();
+    }
+
+    private AttackTables(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long knightAttacks(final int tileCoordinate){
+        return KNIGHT_ATTACKS[tileCoordinate];
+    }
+
+    public static long kingAttacks(final int tileCoordinate){
+        return KING_ATTACKS[tileCoordinate];
+    }
+
+    public static long pawnAttacks(final Alliance alliance, final int tileCoordinate){
+        return PAWN_ATTACKS[alliance.ordinal()][tileCoordinate];
+    }
+
+    public static long pawnPushes(final Alliance alliance, final int tileCoordinate){
+        return PAWN_PUSHES[alliance.ordinal()][tileCoordinate];
+    }
+
+    //two tile pawn advance, only set for pawns still on their starting rank
+    public static long pawnJumps(final Alliance alliance, final int tileCoordinate){
+        return PAWN_JUMPS[alliance.ordinal()][tileCoordinate];
+    }
+
+    //tiles strictly between two tiles sharing a rank, file or diagonal, EMPTY if they do not line up
+    public static long between(final int firstCoordinate, final int secondCoordinate){
+        return BETWEEN[firstCoordinate][secondCoordinate];
+    }
+
+    //the whole rank, file or diagonal through both tiles, edge to edge, EMPTY if they do not line up
+    public static long line(final int firstCoordinate, final int secondCoordinate){
+        return LINE[firstCoordinate][secondCoordinate];
+    }
+
+    private static long[] initTable(final int[][] offsets) {
+        final long[] table = new long[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            final int row = i / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = i % BoardUtils.NUM_TILES_PER_ROW;
+            for(final int[] offset : offsets){
+                final int candidateRow = row + offset[0];
+                final int candidateColumn = column + offset[1];
+                if(candidateRow >= 0 && candidateRow < BoardUtils.NUM_TILES_PER_ROW &&
+                        candidateColumn >= 0 && candidateColumn < BoardUtils.NUM_TILES_PER_ROW){
+                    table[i] |= BitBoards.squareMask(candidateRow * BoardUtils.NUM_TILES_PER_ROW + candidateColumn);
+                }
+            }
+        }
+        return table;
+    }
+
+    private static long[] initPawnJumps(final Alliance alliance, final long startingRank) {
+        final long[] table = new long[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            if(BitBoards.isSet(startingRank, i)){
+                table[i] = BitBoards.squareMask(i + 2 * BoardUtils.NUM_TILES_PER_ROW * alliance.getDirection());
+            }
+        }
+        return table;
+    }
+
+    private static void initRays() {
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            final int row = i / BoardUtils.NUM_TILES_PER_ROW;
+            final int column = i % BoardUtils.NUM_TILES_PER_ROW;
+            for(final int[] direction : KING_OFFSETS){
+                final long line = ray(row, column, direction[0], direction[1]) |
+                        ray(row, column, -direction[0], -direction[1]) | BitBoards.squareMask(i);
+                long between = BitBoards.EMPTY;
+                int candidateRow = row + direction[0];
+                int candidateColumn = column + direction[1];
+                while(candidateRow >= 0 && candidateRow < BoardUtils.NUM_TILES_PER_ROW &&
+                        candidateColumn >= 0 && candidateColumn < BoardUtils.NUM_TILES_PER_ROW){
+                    final int candidateCoordinate = candidateRow * BoardUtils.NUM_TILES_PER_ROW + candidateColumn;
+                    BETWEEN[i][candidateCoordinate] = between;
+                    LINE[i][candidateCoordinate] = line;
+                    between |= BitBoards.squareMask(candidateCoordinate);
+                    candidateRow += direction[0];
+                    candidateColumn += direction[1];
+                }
+            }
+        }
+    }
+
+    private static long ray(final int row, final int column, final int rowStep, final int columnStep) {
+        long ray = BitBoards.EMPTY;
+        int candidateRow = row + rowStep;
+        int candidateColumn = column + columnStep;
+        while(candidateRow >= 0 && candidateRow < BoardUtils.NUM_TILES_PER_ROW &&
+                candidateColumn >= 0 && candidateColumn < BoardUtils.NUM_TILES_PER_ROW){
+            ray |= BitBoards.squareMask(candidateRow * BoardUtils.NUM_TILES_PER_ROW + candidateColumn);
+            candidateRow += rowStep;
+            candidateColumn += columnStep;
+        }
+        return ray;
+    }
+
+}
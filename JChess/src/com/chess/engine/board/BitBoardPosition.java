@@ -0,0 +1,43 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+/**
+ *
+ * Read only bitboard view of a position, enough for MoveGenerator to produce packed moves.
+ *
+ * Castling rights are the four bits below; a right is only set while the king and
+ * that rook are both still on their starting tiles and have never moved.
+ *
+ * */
+
+public interface BitBoardPosition {
+
+    int NO_SQUARE = -1;
+
+    int WHITE_KING_SIDE_CASTLE = 1;
+    int WHITE_QUEEN_SIDE_CASTLE = 2;
+    int BLACK_KING_SIDE_CASTLE = 4;
+    int BLACK_QUEEN_SIDE_CASTLE = 8;
+
+    long getPieceBitBoard(Alliance alliance, Piece.PieceType pieceType);
+
+    long getOccupancy(Alliance alliance);
+
+    long getOccupancy();
+
+    //null for an empty tile
+    Piece.PieceType getPieceType(int tileCoordinate);
+
+    Alliance getMoveMaker();
+
+    //the tile a pawn jumped over on the last move, or NO_SQUARE
+    int getEnPassantSquare();
+
+    int getCastlingRights();
+
+    //Zobrist key of the position, see Zobrist
+    long getZobristKey();
+
+}
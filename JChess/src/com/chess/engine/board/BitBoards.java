@@ -0,0 +1,73 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+
+/**
+ *
+ * Helpers for the bitboard representation used by Board.
+ *
+ * Bit i of a bitboard is tile coordinate i, so bit 0 is a8 and bit 63 is h1,
+ * the same numbering the rest of the engine already uses for tiles.
+ *
+ * */
+
+public final class BitBoards {
+
+    public static final int NUM_PIECE_TYPES = Piece.PieceType.values().length;
+    public static final int NUM_BIT_BOARDS = NUM_PIECE_TYPES * Alliance.values().length;
+
+    public static final long EMPTY = 0L;
+
+    public static final long FIRST_COLUMN = columnMask(0);
+    public static final long SECOND_COLUMN = columnMask(1);
+    public static final long SEVENTH_COLUMN = columnMask(6);
+    public static final long EIGHTH_COLUMN = columnMask(7);
+
+    public static final long EIGHTH_RANK = rankMask(0);
+    public static final long SEVENTH_RANK = rankMask(8);
+    public static final long SECOND_RANK = rankMask(48);
+    public static final long FIRST_RANK = rankMask(56);
+
+    private BitBoards(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int index(final Alliance alliance, final Piece.PieceType pieceType){
+        return alliance.ordinal() * NUM_PIECE_TYPES + pieceType.ordinal();
+    }
+
+    public static long squareMask(final int tileCoordinate){
+        return 1L << tileCoordinate;
+    }
+
+    public static boolean isSet(final long bitBoard, final int tileCoordinate){
+        return (bitBoard & (1L << tileCoordinate)) != 0;
+    }
+
+    //lowest set tile coordinate, only valid for a non empty bitboard
+    public static int firstSquare(final long bitBoard){
+        return Long.numberOfTrailingZeros(bitBoard);
+    }
+
+    public static long clearFirstSquare(final long bitBoard){
+        return bitBoard & (bitBoard - 1);
+    }
+
+    public static int count(final long bitBoard){
+        return Long.bitCount(bitBoard);
+    }
+
+    private static long columnMask(final int columnNumber){
+        long mask = EMPTY;
+        for(int i = columnNumber; i < BoardUtils.NUM_TILES; i += BoardUtils.NUM_TILES_PER_ROW){
+            mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    private static long rankMask(final int rankStart){
+        return 0xFFL << rankStart;
+    }
+
+}
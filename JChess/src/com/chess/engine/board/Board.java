@@ -5,14 +5,19 @@ import com.chess.engine.pieces.*;
 import com.chess.engine.player.BlackPlayer;
 import com.chess.engine.player.Player;
 import com.chess.engine.player.WhitePlayer;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 import java.util.*;
 
-public class Board {
+public class Board implements BitBoardPosition {
 
-    private final List<Tile> gameBoard;
+    private final Piece[] boardConfig;
+    private final long[] pieceBitBoards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
 
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
@@ -22,20 +27,41 @@ public class Board {
     private final Player currentPlayer;
 
     private final Pawn enPassantPawn;
+    private final Alliance moveMaker;
+    private final int castlingRights;
+    private final long zobristKey;
+
+    //plies since the last capture or pawn move, and the keys of the positions in between, oldest first
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long[] historyKeys;
 
     private Board(final Builder builder) {
 
-        this.gameBoard = createGameBoard(builder);
-        this.whitePieces = calculateActivePieces(this.gameBoard, Alliance.WHITE);
-        this.blackPieces = calculateActivePieces(this.gameBoard, Alliance.BLACK);
+        this.boardConfig = builder.boardConfig.clone();
+        this.pieceBitBoards = createPieceBitBoards(this.boardConfig);
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitBoards, Alliance.BLACK);
+        this.whitePieces = calculateActivePieces(this.boardConfig, this.whiteOccupancy);
+        this.blackPieces = calculateActivePieces(this.boardConfig, this.blackOccupancy);
 
         this.enPassantPawn = builder.enPassantPawn;
-
-        final Collection<Move> whiteStandardLegalMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardLegalMoves = calculateLegalMoves(this.blackPieces);
-
-        this.whitePlayer = new WhitePlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardLegalMoves, blackStandardLegalMoves);
+        this.moveMaker = builder.nextMoveMaker;
+        this.castlingRights = calculateCastlingRights(this.boardConfig);
+        //a move hands over the key with its pieces already updated, any other board is hashed from scratch
+        this.zobristKey = builder.zobristPieceKey != null ?
+                builder.zobristPieceKey ^ Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(getEnPassantSquare()) :
+                Zobrist.calculateKey(this);
+        this.halfmoveClock = builder.halfmoveClock;
+        this.fullmoveNumber = builder.fullmoveNumber;
+        this.historyKeys = builder.historyKeys;
+
+        //move generation only runs the first time someone asks for it
+        final Supplier<Collection<Move>> whiteLegalMoves = Suppliers.memoize(() -> calculateLegalMoves(Alliance.WHITE));
+        final Supplier<Collection<Move>> blackLegalMoves = Suppliers.memoize(() -> calculateLegalMoves(Alliance.BLACK));
+
+        this.whitePlayer = new WhitePlayer(this, whiteLegalMoves);
+        this.blackPlayer = new BlackPlayer(this, blackLegalMoves);
         this.currentPlayer = builder.nextMoveMaker.choosePlayer(this.whitePlayer, this.blackPlayer);
 
 
@@ -46,7 +72,7 @@ public class Board {
         final StringBuilder builder = new StringBuilder();
         for(int i = 0; i < BoardUtils.NUM_TILES; i++){
 
-            final String tileText = this.gameBoard.get(i).toString();
+            final String tileText = getTile(i).toString();
             builder.append(String.format("%3s", tileText));
             if((i + 1) % BoardUtils.NUM_TILES_PER_ROW == 0){
                 builder.append("\n");
@@ -72,6 +98,56 @@ public class Board {
         return this.enPassantPawn;
     }
 
+    @Override
+    public Alliance getMoveMaker(){
+        return this.moveMaker;
+    }
+
+    @Override
+    public int getEnPassantSquare(){
+        if(this.enPassantPawn == null){
+            return NO_SQUARE;
+        }
+        return this.enPassantPawn.getPiecePosition() + (BoardUtils.NUM_TILES_PER_ROW * this.enPassantPawn.getPieceAlliance().getOppositeDirection());
+    }
+
+    @Override
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+
+    @Override
+    public long getZobristKey(){
+        return this.zobristKey;
+    }
+
+    public int getHalfmoveClock(){
+        return this.halfmoveClock;
+    }
+
+    public int getFullmoveNumber(){
+        return this.fullmoveNumber;
+    }
+
+    //whether this position, with the same side to move and rights, was already on the board since the last capture or pawn move
+    public boolean isRepetition(){
+        for(int i = this.historyKeys.length - 4; i >= 0; i -= 2){
+            if(this.historyKeys[i] == this.zobristKey){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //a hundred plies without a capture or pawn move, unless the last of them was mate
+    public boolean isFiftyMoveDraw(){
+        return this.halfmoveClock >= BoardUtils.FIFTY_MOVE_PLIES && !this.currentPlayer.isInCheckMate();
+    }
+
+    long[] getHistoryKeys(){
+        return this.historyKeys;
+    }
+
     public Collection<Piece> getBlackPieces() {
         return this.blackPieces;
     }
@@ -80,40 +156,140 @@ public class Board {
         return this.whitePieces;
     }
 
-    private Collection<Move> calculateLegalMoves(Collection<Piece> pieces) {
-        final List<Move> legalMoves = new ArrayList<>();
-        for(final Piece piece : pieces){
-            legalMoves.addAll(piece.calculateLegalMoves(this));
+    /**
+     * Fully legal moves straight from MoveGenerator, turned into Move objects. Castles are
+     * left to the players.
+     */
+    private Collection<Move> calculateLegalMoves(final Alliance alliance) {
+        final MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(this, alliance, moves);
+        final List<Move> legalMoves = new ArrayList<>(moves.size());
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            if(!PackedMove.isCastlingMove(move)){
+                legalMoves.add(Move.MoveFactory.buildMove(this, move));
+            }
         }
         return ImmutableList.copyOf(legalMoves);
     }
 
-    private static Collection<Piece> calculateActivePieces(final List<Tile> gameBoard, final Alliance alliance) {
+    private static long[] createPieceBitBoards(final Piece[] boardConfig) {
+        final long[] bitBoards = new long[BitBoards.NUM_BIT_BOARDS];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            final Piece piece = boardConfig[i];
+            if(piece != null){
+                bitBoards[BitBoards.index(piece.getPieceAlliance(), piece.getPieceType())] |= BitBoards.squareMask(i);
+            }
+        }
+        return bitBoards;
+    }
+
+    private static long calculateOccupancy(final long[] pieceBitBoards, final Alliance alliance) {
+        long occupancy = BitBoards.EMPTY;
+        for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+            occupancy |= pieceBitBoards[BitBoards.index(alliance, pieceType)];
+        }
+        return occupancy;
+    }
 
-        final List<Piece> activePieces = new ArrayList<>();
+    private static Collection<Piece> calculateActivePieces(final Piece[] boardConfig, final long occupancy) {
 
-        for(final Tile tile : gameBoard){
-            if(tile.isTileOccupied()){
-                final Piece piece = tile.getPiece();
-                if(piece.getPieceAlliance() == alliance){
-                    activePieces.add(piece);
-                }
-            }
+        final Piece[] activePieces = new Piece[BitBoards.count(occupancy)];
+        int i = 0;
+        for(long pieces = occupancy; pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirstSquare(pieces)){
+            activePieces[i++] = boardConfig[BitBoards.firstSquare(pieces)];
         }
         return ImmutableList.copyOf(activePieces);
 
     }
 
-    public Tile getTile(final int tileCoordinate){
-        return gameBoard.get(tileCoordinate);
+    private static int calculateCastlingRights(final Piece[] boardConfig) {
+        int castlingRights = 0;
+        if(isCastleCapable(boardConfig, Alliance.WHITE, 60, 63, true)){
+            castlingRights |= WHITE_KING_SIDE_CASTLE;
+        }
+        if(isCastleCapable(boardConfig, Alliance.WHITE, 60, 56, false)){
+            castlingRights |= WHITE_QUEEN_SIDE_CASTLE;
+        }
+        if(isCastleCapable(boardConfig, Alliance.BLACK, 4, 7, true)){
+            castlingRights |= BLACK_KING_SIDE_CASTLE;
+        }
+        if(isCastleCapable(boardConfig, Alliance.BLACK, 4, 0, false)){
+            castlingRights |= BLACK_QUEEN_SIDE_CASTLE;
+        }
+        return castlingRights;
     }
 
-    private static List<Tile> createGameBoard(final Builder builder){
-        final Tile[] tiles = new Tile[BoardUtils.NUM_TILES];
-        for(int i=0; i < BoardUtils.NUM_TILES; i++){
-            tiles[i] = Tile.createTile(i, builder.boardConfig.get(i));
+    private static boolean isCastleCapable(final Piece[] boardConfig,
+                                           final Alliance alliance,
+                                           final int kingCoordinate,
+                                           final int rookCoordinate,
+                                           final boolean kingSide) {
+        final Piece king = boardConfig[kingCoordinate];
+        final Piece rook = boardConfig[rookCoordinate];
+        if(king == null || rook == null || !king.getPieceType().isKing() || !rook.getPieceType().isRook() ||
+                king.getPieceAlliance() != alliance || rook.getPieceAlliance() != alliance ||
+                !king.isFirstMove() || !rook.isFirstMove()){
+            return false;
         }
-        return ImmutableList.copyOf(tiles);
+        final King castleKing = (King) king;
+        return !castleKing.isCastled() && (kingSide ? castleKing.isKingSideCastleCapable() : castleKing.isQueenSideCastleCapable());
+    }
+
+    /**
+     * Compatibility view over the piece array, tiles are no longer stored on the board.
+     */
+    public Tile getTile(final int tileCoordinate){
+        return Tile.createTile(tileCoordinate, this.boardConfig[tileCoordinate]);
+    }
+
+    public Piece getPiece(final int tileCoordinate){
+        return this.boardConfig[tileCoordinate];
+    }
+
+    @Override
+    public Piece.PieceType getPieceType(final int tileCoordinate){
+        final Piece piece = this.boardConfig[tileCoordinate];
+        return piece != null ? piece.getPieceType() : null;
+    }
+
+    public boolean isTileOccupied(final int tileCoordinate){
+        return BitBoards.isSet(getOccupancy(), tileCoordinate);
+    }
+
+    @Override
+    public long getPieceBitBoard(final Alliance alliance, final Piece.PieceType pieceType){
+        return this.pieceBitBoards[BitBoards.index(alliance, pieceType)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance){
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    @Override
+    public long getOccupancy(){
+        return this.whiteOccupancy | this.blackOccupancy;
+    }
+
+    /**
+     * Whether any piece of the attacking alliance hits the tile. Rays are cast out from the tile
+     * and the leaper tables are looked up in reverse, so no moves are generated.
+     */
+    public boolean isSquareAttacked(final int tileCoordinate, final Alliance attackingAlliance){
+        return MoveGenerator.isSquareAttacked(this, tileCoordinate, attackingAlliance);
+    }
+
+    //whether the alliance has any legal move, answered by the packed generator without building Move objects or boards
+    public boolean hasLegalMoves(final Alliance alliance){
+        final MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(this, alliance, moves);
+        return !moves.isEmpty();
+    }
+
+    //bitboard of every piece, of either alliance, that attacks the tile
+    public long getAttackersToSquare(final int tileCoordinate){
+        return MoveGenerator.attackersTo(this, tileCoordinate, getOccupancy());
     }
 
     public static Board createStandardBoard(){
@@ -165,16 +341,20 @@ public class Board {
 
     public static class Builder{
 
-        Map<Integer, Piece> boardConfig;
+        Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
+        Long zobristPieceKey;
+        int halfmoveClock;
+        int fullmoveNumber = 1;
+        long[] historyKeys = new long[0];
 
         public Builder(){
-            this.boardConfig = new HashMap<>();
+            this.boardConfig = new Piece[BoardUtils.NUM_TILES];
         }
 
         public Builder setPiece(final Piece piece){
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = piece;
             return this;
         }
 
@@ -190,6 +370,40 @@ public class Board {
         public void setEnPassantPawn(Pawn enPassantPawn) {
             this.enPassantPawn = enPassantPawn;
         }
+
+        //key of the pieces and side to move, the board adds its own castling and en passant keys
+        public Builder setZobristPieceKey(final long zobristPieceKey) {
+            this.zobristPieceKey = zobristPieceKey;
+            return this;
+        }
+
+        public Builder setHalfmoveClock(final int halfmoveClock) {
+            this.halfmoveClock = halfmoveClock;
+            return this;
+        }
+
+        public Builder setFullmoveNumber(final int fullmoveNumber) {
+            this.fullmoveNumber = fullmoveNumber;
+            return this;
+        }
+
+        /**
+         * Carries the clocks and the position history over from the board a move was made on.
+         * A capture or a pawn move can never be undone, so it starts both afresh.
+         */
+        public Builder setPreviousBoard(final Board previousBoard, final boolean irreversible) {
+            this.fullmoveNumber = previousBoard.fullmoveNumber + (previousBoard.moveMaker.isBlack() ? 1 : 0);
+            if(irreversible){
+                this.halfmoveClock = 0;
+                this.historyKeys = new long[0];
+            } else {
+                this.halfmoveClock = previousBoard.halfmoveClock + 1;
+                final long[] previousKeys = previousBoard.historyKeys;
+                this.historyKeys = Arrays.copyOf(previousKeys, previousKeys.length + 1);
+                this.historyKeys[previousKeys.length] = previousBoard.zobristKey;
+            }
+            return this;
+        }
     }
 
 }
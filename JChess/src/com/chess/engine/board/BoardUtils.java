@@ -35,6 +35,9 @@ public class BoardUtils {
     public static final int NUM_TILES = 64;
     public static final int NUM_TILES_PER_ROW = 8;
 
+    //the fifty move rule counts plies, a move by each side
+    public static final int FIFTY_MOVE_PLIES = 100;
+
     private BoardUtils(){
         throw new RuntimeException("You cannot instantiate me!");
     }
@@ -0,0 +1,147 @@
+package com.chess.engine.board;
+
+/**
+ *
+ * Sliding piece attacks looked up from magic bitboard tables.
+ *
+ * For every tile the relevant blockers (the tiles a rook or bishop ray passes over, minus the
+ * board edge) are multiplied by a magic number, and the top bits of the product index a table
+ * built once when the class loads. The magics were searched offline for this engine's tile
+ * numbering (bit 0 is a8).
+ *
+ * */
+
+public final class MagicBitBoards {
+
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x8080008020104000L, 0x00C0100040002008L, 0x0680300020008880L, 0x0200041020420008L,
+            0x0280021C00800800L, 0x9880020021040080L, 0x8400489004010218L, 0x2080002041000080L,
+            0x1830800020400082L, 0x4000400050002008L, 0x0001002001001044L, 0x0804808010000800L,
+            0x0001000502100800L, 0x0480800400020080L, 0x0401000100020004L, 0x1441000042008100L,
+            0x0000208000400080L, 0x0209050020400080L, 0x2090008010200082L, 0x0080210009001002L,
+            0x0800808008000402L, 0x2042808004000200L, 0x0000040010822108L, 0x110A020000804401L,
+            0x00C000C180003181L, 0x0100802500400100L, 0x8180100080200085L, 0x0820100080080080L,
+            0x2040080100100500L, 0x0040020080040080L, 0xC4A2000200811854L, 0x0405800080004100L,
+            0x0040002040800080L, 0x2040201008400040L, 0x0080100080802005L, 0x0004100101000A20L,
+            0x3804000800800480L, 0x208A000822005084L, 0x0480100104000288L, 0x4200800040800100L,
+            0x2200400080208000L, 0x0001E0005001C003L, 0x8C60200041010010L, 0x1060080010008080L,
+            0x1108020004004040L, 0x8004010002004040L, 0x000008018A0C0030L, 0x0004168C244A0003L,
+            0x1808802446010200L, 0x90A8200840008880L, 0x0030001880200080L, 0x0600100080080080L,
+            0x0004800800040080L, 0x4000800400020080L, 0x1003000200040100L, 0x0A23000210804100L,
+            0x0000401482002102L, 0x2002820021055042L, 0x0824100820010041L, 0x0012059820300101L,
+            0x0252000410200802L, 0x0081000804000201L, 0x000050022110880CL, 0x01009240870C0022L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x00040404046C0100L, 0x0020084288A28100L, 0x1A32048A02000000L, 0x0011041080000010L,
+            0x0424042010000800L, 0x0800822060000040L, 0x0200820820046024L, 0x1040210048044000L,
+            0x0002400401820200L, 0x2802040132140110L, 0x20010818A1020800L, 0x0061044412800042L,
+            0x0208211040200000L, 0x1A00010C02C02A80L, 0x0000410858040410L, 0x0001402401041000L,
+            0x80200026A0021220L, 0x0020000404840040L, 0x3422000C04140148L, 0x0184000809413040L,
+            0x0084008083A00008L, 0xC010400A08200410L, 0x000400004118C804L, 0x4002011111010110L,
+            0x0C09088044301000L, 0x0402020820440400L, 0x002808000C0B2221L, 0x0004802006020200L,
+            0x0031001001004019L, 0x00011200410080A0L, 0x0102108804108800L, 0x1001044412020880L,
+            0x4A98044000042822L, 0x2018028202080804L, 0x0002029002220120L, 0x0451110802040040L,
+            0x4020420020020080L, 0x0220108100002400L, 0x0004480042520900L, 0x400A1090222A0210L,
+            0x00030338A0A84000L, 0x00008890880C9000L, 0x1000420041001004L, 0x2082002019000801L,
+            0x2000441008800402L, 0x0840010861008282L, 0x8484011A44100202L, 0x5424208404400908L,
+            0x0182184202100302L, 0x0000209808281000L, 0x0140064608111015L, 0x0120800210440842L,
+            0x8000001002021000L, 0x0800081190008001L, 0x0004089021020002L, 0x0202420802008010L,
+            0x0000144208200810L, 0x41A0010101216090L, 0x0800880084108840L, 0x00A0008100208800L,
+            0x0400844004208220L, 0x0800200608300100L, 0x0800042034090200L, 0x1010200604024650L
+    };
+
+    private static final long[] ROOK_MASKS = initMasks(ROOK_DIRECTIONS);
+    private static final long[] BISHOP_MASKS = initMasks(BISHOP_DIRECTIONS);
+
+    private static final int[] ROOK_SHIFTS = initShifts(ROOK_MASKS);
+    private static final int[] BISHOP_SHIFTS = initShifts(BISHOP_MASKS);
+
+    private static final long[][] ROOK_ATTACKS = initAttackTable(ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_DIRECTIONS);
+    private static final long[][] BISHOP_ATTACKS = initAttackTable(BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_DIRECTIONS);
+
+    private MagicBitBoards(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long rookAttacks(final int tileCoordinate, final long occupancy){
+        return ROOK_ATTACKS[tileCoordinate][(int) (((occupancy & ROOK_MASKS[tileCoordinate]) * ROOK_MAGICS[tileCoordinate]) >>> ROOK_SHIFTS[tileCoordinate])];
+    }
+
+    public static long bishopAttacks(final int tileCoordinate, final long occupancy){
+        return BISHOP_ATTACKS[tileCoordinate][(int) (((occupancy & BISHOP_MASKS[tileCoordinate]) * BISHOP_MAGICS[tileCoordinate]) >>> BISHOP_SHIFTS[tileCoordinate])];
+    }
+
+    public static long queenAttacks(final int tileCoordinate, final long occupancy){
+        return rookAttacks(tileCoordinate, occupancy) | bishopAttacks(tileCoordinate, occupancy);
+    }
+
+    private static long[] initMasks(final int[][] directions) {
+        final long[] masks = new long[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            //the last tile of a ray never blocks anything behind it, so it is left out of the mask
+            masks[i] = slidingAttacks(i, BitBoards.EMPTY, directions, true);
+        }
+        return masks;
+    }
+
+    private static int[] initShifts(final long[] masks) {
+        final int[] shifts = new int[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            shifts[i] = Long.SIZE - BitBoards.count(masks[i]);
+        }
+        return shifts;
+    }
+
+    private static long[][] initAttackTable(final long[] masks,
+                                            final long[] magics,
+                                            final int[] shifts,
+                                            final int[][] directions) {
+        final long[][] attackTable = new long[BoardUtils.NUM_TILES][];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            attackTable[i] = new long[1 << BitBoards.count(masks[i])];
+            //walk every subset of the mask (carry-rippler) and store its attack set
+            long blockers = BitBoards.EMPTY;
+            do {
+                final int index = (int) ((blockers * magics[i]) >>> shifts[i]);
+                attackTable[i][index] = slidingAttacks(i, blockers, directions, false);
+                blockers = (blockers - masks[i]) & masks[i];
+            } while(blockers != BitBoards.EMPTY);
+        }
+        return attackTable;
+    }
+
+    private static long slidingAttacks(final int tileCoordinate,
+                                       final long occupancy,
+                                       final int[][] directions,
+                                       final boolean excludeEdges) {
+        long attacks = BitBoards.EMPTY;
+        final int row = tileCoordinate / BoardUtils.NUM_TILES_PER_ROW;
+        final int column = tileCoordinate % BoardUtils.NUM_TILES_PER_ROW;
+        for(final int[] direction : directions){
+            int candidateRow = row + direction[0];
+            int candidateColumn = column + direction[1];
+            while(isOnBoard(candidateRow, candidateColumn)){
+                if(excludeEdges && !isOnBoard(candidateRow + direction[0], candidateColumn + direction[1])){
+                    break;
+                }
+                final int candidateCoordinate = candidateRow * BoardUtils.NUM_TILES_PER_ROW + candidateColumn;
+                attacks |= BitBoards.squareMask(candidateCoordinate);
+                if(BitBoards.isSet(occupancy, candidateCoordinate)){
+                    break;
+                }
+                candidateRow += direction[0];
+                candidateColumn += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(final int row, final int column){
+        return row >= 0 && row < BoardUtils.NUM_TILES_PER_ROW && column >= 0 && column < BoardUtils.NUM_TILES_PER_ROW;
+    }
+
+}
@@ -97,6 +97,29 @@ public abstract class Move {
         return null;
     }
 
+    public int toPackedMove(){
+        return PackedMove.create(getCurrentCoordinate(),
+                this.destinationCoordinate,
+                PackedMove.pieceCode(this.movedPiece.getPieceType()),
+                isAttack() ? PackedMove.pieceCode(getAttackedPiece().getPieceType()) : PackedMove.NO_PIECE,
+                getPackedFlag(),
+                PackedMove.NO_PIECE);
+    }
+
+    protected int getPackedFlag(){
+        return PackedMove.QUIET;
+    }
+
+    //the key of the board this move leads to, minus the castling and en passant parts the new board adds itself
+    protected long calculateZobristPieceKey(){
+        return Zobrist.updatePieceKey(this.board, this.board.getZobristKey(), toPackedMove());
+    }
+
+    //a capture or pawn move, after which no earlier position can come back
+    public boolean isIrreversible(){
+        return isAttack() || this.movedPiece.getPieceType() == Piece.PieceType.PAWN;
+    }
+
     public Board undo() {
         final Board.Builder builder = new Builder();
         for (final Piece piece : this.board.getBlackPieces()) {
@@ -160,6 +183,8 @@ public abstract class Move {
         //move the moved piece
         builder.setPiece(this.movedPiece.movePiece(this));
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+        builder.setZobristPieceKey(calculateZobristPieceKey());
+        builder.setPreviousBoard(this.board, isIrreversible());
         return builder.build();
     }
 
@@ -298,6 +323,11 @@ public abstract class Move {
             return this == other || other instanceof PawnEnPassantAttackMove && super.equals(other);
         }
 
+        @Override
+        protected int getPackedFlag(){
+            return PackedMove.EN_PASSANT;
+        }
+
         @Override
         public Board execute(){
             final Builder builder = new Builder();
@@ -314,6 +344,8 @@ public abstract class Move {
             }
             builder.setPiece(this.movedPiece.movePiece(this));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristPieceKey(calculateZobristPieceKey());
+            builder.setPreviousBoard(this.board, isIrreversible());
             return builder.build();
 
         }
@@ -332,21 +364,32 @@ public abstract class Move {
 
         final Move decoratedMove;
         final Pawn promotedPawn;
+        final Piece promotionPiece;
 
         public PawnPromotion(final Move decoratedMove) {
+            this(decoratedMove, ((Pawn) decoratedMove.getMovedPiece()).getPromotionPiece());
+        }
+
+        public PawnPromotion(final Move decoratedMove, final Piece promotionPiece) {
             super(decoratedMove.getBoard(), decoratedMove.getMovedPiece(), decoratedMove.getDestinationCoordinate());
             this.decoratedMove = decoratedMove;
             this.promotedPawn = (Pawn) decoratedMove.getMovedPiece();
+            this.promotionPiece = promotionPiece;
+        }
+
+        public Piece getPromotionPiece(){
+            return this.promotionPiece;
         }
 
         @Override
         public int hashCode(){
-            return decoratedMove.hashCode() + (31 * promotedPawn.hashCode());
+            return decoratedMove.hashCode() + (31 * promotedPawn.hashCode()) + promotionPiece.getPieceType().hashCode();
         }
 
         @Override
         public boolean equals(final Object other){
-            return this == other || other instanceof PawnPromotion && (super.equals(other));
+            return this == other || other instanceof PawnPromotion && (super.equals(other)) &&
+                    this.promotionPiece.getPieceType() == ((PawnPromotion) other).getPromotionPiece().getPieceType();
         }
 
         @Override
@@ -363,8 +406,10 @@ public abstract class Move {
                 builder.setPiece(piece);
             }
 
-            builder.setPiece(this.promotedPawn.getPromotionPiece().movePiece(this));
+            builder.setPiece(this.promotionPiece.movePiece(this));
             builder.setMoveMaker(pawnMovedBoard.currentPlayer().getAlliance());
+            builder.setZobristPieceKey(calculateZobristPieceKey());
+            builder.setPreviousBoard(this.board, isIrreversible());
             return builder.build();
         }
 
@@ -378,15 +423,21 @@ public abstract class Move {
             return this.decoratedMove.getAttackedPiece();
         }
 
+        @Override
+        public int toPackedMove(){
+            return PackedMove.withPromotion(this.decoratedMove.toPackedMove(),
+                    PackedMove.pieceCode(this.promotionPiece.getPieceType()));
+        }
+
         @Override
         public String toString(){
 
             if(isAttack()){
                 return BoardUtils.getPositionAtCoordinate(this.movedPiece.getPiecePosition()).substring(0,1)
                         + "x" + BoardUtils.getPositionAtCoordinate(this.destinationCoordinate)
-                        + "=Q" + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
+                        + "=" + this.promotionPiece.getPieceType() + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
             }else{
-                return BoardUtils.getPositionAtCoordinate(this.destinationCoordinate) + "=Q" + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
+                return BoardUtils.getPositionAtCoordinate(this.destinationCoordinate) + "=" + this.promotionPiece.getPieceType() + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
             }
 
         }
@@ -411,6 +462,11 @@ public abstract class Move {
             super(board, movedPiece, destinationCoordinate);
         }
 
+        @Override
+        protected int getPackedFlag(){
+            return PackedMove.PAWN_JUMP;
+        }
+
         @Override
         public Board execute(){
             final Builder builder = new Builder();
@@ -427,6 +483,8 @@ public abstract class Move {
             builder.setPiece(movedPawn);
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristPieceKey(calculateZobristPieceKey());
+            builder.setPreviousBoard(this.board, isIrreversible());
             return builder.build();
 
         }
@@ -477,6 +535,8 @@ public abstract class Move {
             //todo look into the first move on normal pieces
             builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination));
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
+            builder.setZobristPieceKey(calculateZobristPieceKey());
+            builder.setPreviousBoard(this.board, isIrreversible());
             return builder.build();
 
         }
@@ -516,6 +576,11 @@ public abstract class Move {
             return this == other || other instanceof KingSideCastleMove && super.equals(other);
         }
 
+        @Override
+        protected int getPackedFlag(){
+            return PackedMove.KING_SIDE_CASTLE;
+        }
+
         @Override
         public String toString(){
             return "O-O" + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
@@ -534,6 +599,11 @@ public abstract class Move {
             return this == other || other instanceof QueenSideCastleMove && super.equals(other);
         }
 
+        @Override
+        protected int getPackedFlag(){
+            return PackedMove.QUEEN_SIDE_CASTLE;
+        }
+
         @Override
         public String toString(){
             return "O-O-O" + Move.calculateIfCheckAndCheckMateHash(board.currentPlayer().makeMove(this).getTransitionBoard());
@@ -557,6 +627,11 @@ public abstract class Move {
             return -1;
         }
 
+        @Override
+        public int toPackedMove(){
+            return PackedMove.NULL_MOVE;
+        }
+
     }
 
     public static class MoveFactory {
@@ -577,6 +652,59 @@ public abstract class Move {
 
         }
 
+        /**
+         * Builds the Move object for a packed move generated from this board's own position.
+         * Nothing is checked, so the packed move has to fit the board.
+         */
+        static Move buildMove(final Board board, final int packedMove){
+
+            final int currentCoordinate = PackedMove.getCurrentCoordinate(packedMove);
+            final int destinationCoordinate = PackedMove.getDestinationCoordinate(packedMove);
+            final Piece movedPiece = board.getPiece(currentCoordinate);
+
+            switch (PackedMove.getFlag(packedMove)) {
+                case PackedMove.PAWN_JUMP:
+                    return new PawnJump(board, movedPiece, destinationCoordinate);
+                case PackedMove.EN_PASSANT:
+                    return new PawnEnPassantAttackMove(board, movedPiece, destinationCoordinate, board.getEnPassantPawn());
+                case PackedMove.KING_SIDE_CASTLE:
+                    return new KingSideCastleMove(board, movedPiece, destinationCoordinate,
+                            (Rook) board.getPiece(destinationCoordinate + 1), destinationCoordinate + 1, destinationCoordinate - 1);
+                case PackedMove.QUEEN_SIDE_CASTLE:
+                    return new QueenSideCastleMove(board, movedPiece, destinationCoordinate,
+                            (Rook) board.getPiece(destinationCoordinate - 2), destinationCoordinate - 2, destinationCoordinate + 1);
+                default:
+                    break;
+            }
+
+            final Piece attackedPiece = board.getPiece(destinationCoordinate);
+            if(movedPiece.getPieceType() == Piece.PieceType.PAWN){
+                final Move pawnMove = attackedPiece != null ?
+                        new PawnAttackMove(board, movedPiece, destinationCoordinate, attackedPiece) :
+                        new PawnMove(board, movedPiece, destinationCoordinate);
+                return PackedMove.isPromotion(packedMove) ?
+                        new PawnPromotion(pawnMove, ((Pawn) movedPiece).getPromotionPiece(PackedMove.pieceType(PackedMove.getPromotionPiece(packedMove)))) :
+                        pawnMove;
+            }
+
+            return attackedPiece != null ?
+                    new MajorAttackMove(board, movedPiece, destinationCoordinate, attackedPiece) :
+                    new MajorMove(board, movedPiece, destinationCoordinate);
+        }
+
+        //turns a packed move from the search back into the board's own Move object
+        public static Move createMove(final Board board, final int packedMove){
+
+            for(final Move move: board.currentPlayer().getLegalMoves()){
+                if(move.toPackedMove() == packedMove){
+                    return move;
+                }
+            }
+
+            return NULL_MOVE;
+
+        }
+
     }
 
 }
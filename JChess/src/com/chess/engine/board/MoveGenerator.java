@@ -0,0 +1,396 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import static com.chess.engine.board.BitBoardPosition.*;
+
+/**
+ *
+ * Generates packed moves straight from the bitboards of a position, without creating any
+ * Move, Tile or Piece objects.
+ *
+ * generateMoves gives pseudo legal moves: castling already checks that the king does not start
+ * in, pass through or land on an attacked tile, but other moves may still leave the king in check.
+ * generateLegalMoves gives only legal moves, using check and pin masks.
+ *
+ * */
+
+public final class MoveGenerator {
+
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final PieceType[] OFFICER_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
+    private static final PieceType[] PINNABLE_OFFICER_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private MoveGenerator(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static void generateMoves(final BitBoardPosition position, final MoveList moves) {
+
+        final Alliance alliance = position.getMoveMaker();
+        final long ownPieces = position.getOccupancy(alliance);
+        final long occupancy = position.getOccupancy();
+
+        generatePawnMoves(position, alliance, occupancy, moves);
+
+        for(final PieceType pieceType : OFFICER_TYPES){
+            final int movedPiece = PackedMove.pieceCode(pieceType);
+            for(long pieces = position.getPieceBitBoard(alliance, pieceType); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirstSquare(pieces)){
+                final int currentCoordinate = BitBoards.firstSquare(pieces);
+                final long targets = attacks(pieceType, alliance, currentCoordinate, occupancy) & ~ownPieces;
+                addMoves(position, currentCoordinate, targets, movedPiece, moves);
+            }
+        }
+
+        generateCastleMoves(position, alliance, occupancy, moves);
+    }
+
+    /**
+     * Only the legal moves of the alliance, found without playing any of them.
+     *
+     * The king may step to any tile the enemy does not attack once the king itself is off the board.
+     * In double check nothing else can move. In single check every other move has to take the
+     * checker or land between it and the king, and a pinned piece can only move along the line
+     * through its king. En passant takes two pawns off the same rank, so it is tested by looking
+     * at the king with both of them gone. En passant is only offered to the side to move.
+     */
+    public static void generateLegalMoves(final BitBoardPosition position, final Alliance alliance, final MoveList moves) {
+
+        final Alliance opponent = alliance.getOpponent();
+        final long ownPieces = position.getOccupancy(alliance);
+        final long enemyPieces = position.getOccupancy(opponent);
+        final long occupancy = ownPieces | enemyPieces;
+        final int kingCoordinate = BitBoards.firstSquare(position.getPieceBitBoard(alliance, PieceType.KING));
+
+        final int kingPiece = PackedMove.pieceCode(PieceType.KING);
+        final long kinglessOccupancy = occupancy & ~BitBoards.squareMask(kingCoordinate);
+        for(long targets = AttackTables.kingAttacks(kingCoordinate) & ~ownPieces; targets != BitBoards.EMPTY; targets = BitBoards.clearFirstSquare(targets)){
+            final int destinationCoordinate = BitBoards.firstSquare(targets);
+            if(!isSquareAttacked(position, destinationCoordinate, opponent, kinglessOccupancy)){
+                moves.add(PackedMove.create(kingCoordinate, destinationCoordinate, kingPiece,
+                        PackedMove.pieceCode(position.getPieceType(destinationCoordinate)), PackedMove.QUIET, PackedMove.NO_PIECE));
+            }
+        }
+
+        final long checkers = attackersTo(position, kingCoordinate, occupancy) & enemyPieces;
+        if(BitBoards.count(checkers) > 1){
+            return;
+        }
+        final long checkMask = checkers == BitBoards.EMPTY ? ~BitBoards.EMPTY :
+                checkers | AttackTables.between(kingCoordinate, BitBoards.firstSquare(checkers));
+        final long pinnedPieces = calculatePinnedPieces(position, alliance, kingCoordinate, occupancy);
+
+        generateLegalPawnMoves(position, alliance, kingCoordinate, checkMask, pinnedPieces, moves);
+
+        for(final PieceType pieceType : PINNABLE_OFFICER_TYPES){
+            final int movedPiece = PackedMove.pieceCode(pieceType);
+            for(long pieces = position.getPieceBitBoard(alliance, pieceType); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirstSquare(pieces)){
+                final int currentCoordinate = BitBoards.firstSquare(pieces);
+                final long targets = attacks(pieceType, alliance, currentCoordinate, occupancy) & ~ownPieces &
+                        allowedTargets(currentCoordinate, kingCoordinate, checkMask, pinnedPieces);
+                addMoves(position, currentCoordinate, targets, movedPiece, moves);
+            }
+        }
+
+        if(checkers == BitBoards.EMPTY){
+            generateCastleMoves(position, alliance, occupancy, moves);
+        }
+    }
+
+    /**
+     * Number of pseudo legal moves the alliance has, counting a promotion once, the way
+     * Player.getLegalMoves() sizes up mobility. Nothing is added to a move list.
+     */
+    public static int countMoves(final BitBoardPosition position, final Alliance alliance) {
+
+        final long ownPieces = position.getOccupancy(alliance);
+        final long enemyPieces = position.getOccupancy(alliance.getOpponent());
+        final long occupancy = ownPieces | enemyPieces;
+        final int enPassantSquare = alliance == position.getMoveMaker() ? position.getEnPassantSquare() : NO_SQUARE;
+        int count = 0;
+
+        for(long pawns = position.getPieceBitBoard(alliance, PieceType.PAWN); pawns != BitBoards.EMPTY; pawns = BitBoards.clearFirstSquare(pawns)){
+            final int currentCoordinate = BitBoards.firstSquare(pawns);
+            if((AttackTables.pawnPushes(alliance, currentCoordinate) & occupancy) == BitBoards.EMPTY){
+                count++;
+                final long jumps = AttackTables.pawnJumps(alliance, currentCoordinate);
+                if(jumps != BitBoards.EMPTY && (jumps & occupancy) == BitBoards.EMPTY){
+                    count++;
+                }
+            }
+            final long pawnAttacks = AttackTables.pawnAttacks(alliance, currentCoordinate);
+            count += BitBoards.count(pawnAttacks & enemyPieces);
+            if(enPassantSquare != NO_SQUARE && BitBoards.isSet(pawnAttacks, enPassantSquare)){
+                count++;
+            }
+        }
+
+        for(final PieceType pieceType : OFFICER_TYPES){
+            for(long pieces = position.getPieceBitBoard(alliance, pieceType); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirstSquare(pieces)){
+                count += BitBoards.count(attacks(pieceType, alliance, BitBoards.firstSquare(pieces), occupancy) & ~ownPieces);
+            }
+        }
+
+        if(isCastleAvailable(position, alliance, occupancy, true)){
+            count++;
+        }
+        if(isCastleAvailable(position, alliance, occupancy, false)){
+            count++;
+        }
+        return count;
+    }
+
+    public static long attacks(final PieceType pieceType,
+                               final Alliance alliance,
+                               final int tileCoordinate,
+                               final long occupancy) {
+        switch (pieceType) {
+            case PAWN:
+                return AttackTables.pawnAttacks(alliance, tileCoordinate);
+            case KNIGHT:
+                return AttackTables.knightAttacks(tileCoordinate);
+            case BISHOP:
+                return MagicBitBoards.bishopAttacks(tileCoordinate, occupancy);
+            case ROOK:
+                return MagicBitBoards.rookAttacks(tileCoordinate, occupancy);
+            case QUEEN:
+                return MagicBitBoards.queenAttacks(tileCoordinate, occupancy);
+            case KING:
+                return AttackTables.kingAttacks(tileCoordinate);
+            default:
+                throw new RuntimeException("Should not reach here! Not a valid piece type.");
+        }
+    }
+
+    /**
+     * Every piece of either alliance that attacks the tile, found by looking outwards from
+     * the tile with each piece's own attack pattern.
+     */
+    public static long attackersTo(final BitBoardPosition position, final int tileCoordinate, final long occupancy) {
+        final long rooksAndQueens = position.getPieceBitBoard(Alliance.WHITE, PieceType.ROOK) | position.getPieceBitBoard(Alliance.BLACK, PieceType.ROOK) |
+                position.getPieceBitBoard(Alliance.WHITE, PieceType.QUEEN) | position.getPieceBitBoard(Alliance.BLACK, PieceType.QUEEN);
+        final long bishopsAndQueens = position.getPieceBitBoard(Alliance.WHITE, PieceType.BISHOP) | position.getPieceBitBoard(Alliance.BLACK, PieceType.BISHOP) |
+                position.getPieceBitBoard(Alliance.WHITE, PieceType.QUEEN) | position.getPieceBitBoard(Alliance.BLACK, PieceType.QUEEN);
+        return (AttackTables.pawnAttacks(Alliance.WHITE, tileCoordinate) & position.getPieceBitBoard(Alliance.BLACK, PieceType.PAWN))
+                | (AttackTables.pawnAttacks(Alliance.BLACK, tileCoordinate) & position.getPieceBitBoard(Alliance.WHITE, PieceType.PAWN))
+                | (AttackTables.knightAttacks(tileCoordinate) & (position.getPieceBitBoard(Alliance.WHITE, PieceType.KNIGHT) | position.getPieceBitBoard(Alliance.BLACK, PieceType.KNIGHT)))
+                | (AttackTables.kingAttacks(tileCoordinate) & (position.getPieceBitBoard(Alliance.WHITE, PieceType.KING) | position.getPieceBitBoard(Alliance.BLACK, PieceType.KING)))
+                | (MagicBitBoards.bishopAttacks(tileCoordinate, occupancy) & bishopsAndQueens)
+                | (MagicBitBoards.rookAttacks(tileCoordinate, occupancy) & rooksAndQueens);
+    }
+
+    public static boolean isSquareAttacked(final BitBoardPosition position, final int tileCoordinate, final Alliance attackingAlliance) {
+        return isSquareAttacked(position, tileCoordinate, attackingAlliance, position.getOccupancy());
+    }
+
+    private static boolean isSquareAttacked(final BitBoardPosition position,
+                                            final int tileCoordinate,
+                                            final Alliance attackingAlliance,
+                                            final long occupancy) {
+        final Alliance defendingAlliance = attackingAlliance.getOpponent();
+        final long queens = position.getPieceBitBoard(attackingAlliance, PieceType.QUEEN);
+        return (AttackTables.pawnAttacks(defendingAlliance, tileCoordinate) & position.getPieceBitBoard(attackingAlliance, PieceType.PAWN)) != BitBoards.EMPTY
+                || (AttackTables.knightAttacks(tileCoordinate) & position.getPieceBitBoard(attackingAlliance, PieceType.KNIGHT)) != BitBoards.EMPTY
+                || (AttackTables.kingAttacks(tileCoordinate) & position.getPieceBitBoard(attackingAlliance, PieceType.KING)) != BitBoards.EMPTY
+                || (MagicBitBoards.bishopAttacks(tileCoordinate, occupancy) & (position.getPieceBitBoard(attackingAlliance, PieceType.BISHOP) | queens)) != BitBoards.EMPTY
+                || (MagicBitBoards.rookAttacks(tileCoordinate, occupancy) & (position.getPieceBitBoard(attackingAlliance, PieceType.ROOK) | queens)) != BitBoards.EMPTY;
+    }
+
+    private static void generatePawnMoves(final BitBoardPosition position,
+                                          final Alliance alliance,
+                                          final long occupancy,
+                                          final MoveList moves) {
+
+        final int movedPiece = PackedMove.pieceCode(PieceType.PAWN);
+        final long enemyPieces = position.getOccupancy(alliance.getOpponent());
+        final int enPassantSquare = position.getEnPassantSquare();
+
+        for(long pawns = position.getPieceBitBoard(alliance, PieceType.PAWN); pawns != BitBoards.EMPTY; pawns = BitBoards.clearFirstSquare(pawns)){
+
+            final int currentCoordinate = BitBoards.firstSquare(pawns);
+
+            final long pushes = AttackTables.pawnPushes(alliance, currentCoordinate) & ~occupancy;
+            if(pushes != BitBoards.EMPTY){
+                addPawnMove(currentCoordinate, BitBoards.firstSquare(pushes), PackedMove.NO_PIECE, alliance, moves);
+                final long jumps = AttackTables.pawnJumps(alliance, currentCoordinate) & ~occupancy;
+                if(jumps != BitBoards.EMPTY){
+                    moves.add(PackedMove.create(currentCoordinate, BitBoards.firstSquare(jumps), movedPiece,
+                            PackedMove.NO_PIECE, PackedMove.PAWN_JUMP, PackedMove.NO_PIECE));
+                }
+            }
+
+            final long pawnAttacks = AttackTables.pawnAttacks(alliance, currentCoordinate);
+            for(long attacks = pawnAttacks & enemyPieces; attacks != BitBoards.EMPTY; attacks = BitBoards.clearFirstSquare(attacks)){
+                final int destinationCoordinate = BitBoards.firstSquare(attacks);
+                addPawnMove(currentCoordinate, destinationCoordinate,
+                        PackedMove.pieceCode(position.getPieceType(destinationCoordinate)), alliance, moves);
+            }
+
+            if(enPassantSquare != NO_SQUARE && BitBoards.isSet(pawnAttacks, enPassantSquare)){
+                moves.add(PackedMove.create(currentCoordinate, enPassantSquare, movedPiece,
+                        movedPiece, PackedMove.EN_PASSANT, PackedMove.NO_PIECE));
+            }
+        }
+    }
+
+    private static void generateLegalPawnMoves(final BitBoardPosition position,
+                                               final Alliance alliance,
+                                               final int kingCoordinate,
+                                               final long checkMask,
+                                               final long pinnedPieces,
+                                               final MoveList moves) {
+
+        final int movedPiece = PackedMove.pieceCode(PieceType.PAWN);
+        final long enemyPieces = position.getOccupancy(alliance.getOpponent());
+        final long occupancy = position.getOccupancy();
+        final int enPassantSquare = alliance == position.getMoveMaker() ? position.getEnPassantSquare() : NO_SQUARE;
+
+        for(long pawns = position.getPieceBitBoard(alliance, PieceType.PAWN); pawns != BitBoards.EMPTY; pawns = BitBoards.clearFirstSquare(pawns)){
+
+            final int currentCoordinate = BitBoards.firstSquare(pawns);
+            final long allowedTargets = allowedTargets(currentCoordinate, kingCoordinate, checkMask, pinnedPieces);
+
+            final long pushes = AttackTables.pawnPushes(alliance, currentCoordinate) & ~occupancy;
+            if(pushes != BitBoards.EMPTY){
+                if((pushes & allowedTargets) != BitBoards.EMPTY){
+                    addPawnMove(currentCoordinate, BitBoards.firstSquare(pushes), PackedMove.NO_PIECE, alliance, moves);
+                }
+                final long jumps = AttackTables.pawnJumps(alliance, currentCoordinate) & ~occupancy & allowedTargets;
+                if(jumps != BitBoards.EMPTY){
+                    moves.add(PackedMove.create(currentCoordinate, BitBoards.firstSquare(jumps), movedPiece,
+                            PackedMove.NO_PIECE, PackedMove.PAWN_JUMP, PackedMove.NO_PIECE));
+                }
+            }
+
+            final long pawnAttacks = AttackTables.pawnAttacks(alliance, currentCoordinate);
+            for(long attacks = pawnAttacks & enemyPieces & allowedTargets; attacks != BitBoards.EMPTY; attacks = BitBoards.clearFirstSquare(attacks)){
+                final int destinationCoordinate = BitBoards.firstSquare(attacks);
+                addPawnMove(currentCoordinate, destinationCoordinate,
+                        PackedMove.pieceCode(position.getPieceType(destinationCoordinate)), alliance, moves);
+            }
+
+            if(enPassantSquare != NO_SQUARE && BitBoards.isSet(pawnAttacks, enPassantSquare) &&
+                    isEnPassantLegal(position, alliance, kingCoordinate, currentCoordinate, enPassantSquare)){
+                moves.add(PackedMove.create(currentCoordinate, enPassantSquare, movedPiece,
+                        movedPiece, PackedMove.EN_PASSANT, PackedMove.NO_PIECE));
+            }
+        }
+    }
+
+    //where a non king piece may go: onto the check mask, and along the line through its king if it is pinned
+    private static long allowedTargets(final int currentCoordinate,
+                                       final int kingCoordinate,
+                                       final long checkMask,
+                                       final long pinnedPieces) {
+        return BitBoards.isSet(pinnedPieces, currentCoordinate) ?
+                checkMask & AttackTables.line(kingCoordinate, currentCoordinate) : checkMask;
+    }
+
+    //own pieces that are the only thing between the king and an enemy slider looking at it
+    private static long calculatePinnedPieces(final BitBoardPosition position,
+                                              final Alliance alliance,
+                                              final int kingCoordinate,
+                                              final long occupancy) {
+
+        final Alliance opponent = alliance.getOpponent();
+        final long enemyPieces = position.getOccupancy(opponent);
+        final long queens = position.getPieceBitBoard(opponent, PieceType.QUEEN);
+        final long snipers = (MagicBitBoards.rookAttacks(kingCoordinate, enemyPieces) & (position.getPieceBitBoard(opponent, PieceType.ROOK) | queens)) |
+                (MagicBitBoards.bishopAttacks(kingCoordinate, enemyPieces) & (position.getPieceBitBoard(opponent, PieceType.BISHOP) | queens));
+
+        long pinnedPieces = BitBoards.EMPTY;
+        for(long remaining = snipers; remaining != BitBoards.EMPTY; remaining = BitBoards.clearFirstSquare(remaining)){
+            final long blockers = AttackTables.between(kingCoordinate, BitBoards.firstSquare(remaining)) & occupancy;
+            if(BitBoards.count(blockers) == 1 && (blockers & position.getOccupancy(alliance)) != BitBoards.EMPTY){
+                pinnedPieces |= blockers;
+            }
+        }
+        return pinnedPieces;
+    }
+
+    private static boolean isEnPassantLegal(final BitBoardPosition position,
+                                            final Alliance alliance,
+                                            final int kingCoordinate,
+                                            final int currentCoordinate,
+                                            final int enPassantSquare) {
+        final long capturedPawn = BitBoards.squareMask(enPassantSquare + (BoardUtils.NUM_TILES_PER_ROW * alliance.getOppositeDirection()));
+        final long occupancy = (position.getOccupancy() & ~BitBoards.squareMask(currentCoordinate) & ~capturedPawn) | BitBoards.squareMask(enPassantSquare);
+        return (attackersTo(position, kingCoordinate, occupancy) & position.getOccupancy(alliance.getOpponent()) & ~capturedPawn) == BitBoards.EMPTY;
+    }
+
+    private static void addPawnMove(final int currentCoordinate,
+                                    final int destinationCoordinate,
+                                    final int capturedPiece,
+                                    final Alliance alliance,
+                                    final MoveList moves) {
+        final int movedPiece = PackedMove.pieceCode(PieceType.PAWN);
+        if(alliance.isPawnPromotionSquare(destinationCoordinate)){
+            for(final PieceType promotionType : PROMOTION_TYPES){
+                moves.add(PackedMove.create(currentCoordinate, destinationCoordinate, movedPiece,
+                        capturedPiece, PackedMove.QUIET, PackedMove.pieceCode(promotionType)));
+            }
+        } else {
+            moves.add(PackedMove.create(currentCoordinate, destinationCoordinate, movedPiece,
+                    capturedPiece, PackedMove.QUIET, PackedMove.NO_PIECE));
+        }
+    }
+
+    private static void addMoves(final BitBoardPosition position,
+                                 final int currentCoordinate,
+                                 final long targets,
+                                 final int movedPiece,
+                                 final MoveList moves) {
+        for(long remaining = targets; remaining != BitBoards.EMPTY; remaining = BitBoards.clearFirstSquare(remaining)){
+            final int destinationCoordinate = BitBoards.firstSquare(remaining);
+            moves.add(PackedMove.create(currentCoordinate, destinationCoordinate, movedPiece,
+                    PackedMove.pieceCode(position.getPieceType(destinationCoordinate)), PackedMove.QUIET, PackedMove.NO_PIECE));
+        }
+    }
+
+    private static void generateCastleMoves(final BitBoardPosition position,
+                                            final Alliance alliance,
+                                            final long occupancy,
+                                            final MoveList moves) {
+
+        //a castling right means the king is still on e1/e8
+        final int kingCoordinate = alliance.isWhite() ? 60 : 4;
+        final int movedPiece = PackedMove.pieceCode(PieceType.KING);
+
+        if(isCastleAvailable(position, alliance, occupancy, true)){
+            moves.add(PackedMove.create(kingCoordinate, kingCoordinate + 2, movedPiece,
+                    PackedMove.NO_PIECE, PackedMove.KING_SIDE_CASTLE, PackedMove.NO_PIECE));
+        }
+
+        if(isCastleAvailable(position, alliance, occupancy, false)){
+            moves.add(PackedMove.create(kingCoordinate, kingCoordinate - 2, movedPiece,
+                    PackedMove.NO_PIECE, PackedMove.QUEEN_SIDE_CASTLE, PackedMove.NO_PIECE));
+        }
+    }
+
+    private static boolean isCastleAvailable(final BitBoardPosition position,
+                                             final Alliance alliance,
+                                             final long occupancy,
+                                             final boolean kingSide) {
+
+        final int castleRight = kingSide ?
+                (alliance.isWhite() ? WHITE_KING_SIDE_CASTLE : BLACK_KING_SIDE_CASTLE) :
+                (alliance.isWhite() ? WHITE_QUEEN_SIDE_CASTLE : BLACK_QUEEN_SIDE_CASTLE);
+        if((position.getCastlingRights() & castleRight) == 0){
+            return false;
+        }
+
+        final int kingCoordinate = alliance.isWhite() ? 60 : 4;
+        final int direction = kingSide ? 1 : -1;
+        final long path = kingSide ?
+                BitBoards.squareMask(kingCoordinate + 1) | BitBoards.squareMask(kingCoordinate + 2) :
+                BitBoards.squareMask(kingCoordinate - 1) | BitBoards.squareMask(kingCoordinate - 2) | BitBoards.squareMask(kingCoordinate - 3);
+        final Alliance opponent = alliance.getOpponent();
+
+        return (occupancy & path) == BitBoards.EMPTY &&
+                !isSquareAttacked(position, kingCoordinate, opponent) &&
+                !isSquareAttacked(position, kingCoordinate + direction, opponent) &&
+                !isSquareAttacked(position, kingCoordinate + 2 * direction, opponent);
+    }
+
+}
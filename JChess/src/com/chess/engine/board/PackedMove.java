@@ -0,0 +1,123 @@
+package com.chess.engine.board;
+
+import com.chess.engine.pieces.Piece;
+
+/**
+ *
+ * A move packed into a single int so the search can generate and store moves without
+ * allocating Move objects.
+ *
+ * bits  0-5   current coordinate
+ * bits  6-11  destination coordinate
+ * bits 12-14  moved piece code
+ * bits 15-17  captured piece code (NO_PIECE for a quiet move)
+ * bits 18-20  flag (QUIET, PAWN_JUMP, KING_SIDE_CASTLE, QUEEN_SIDE_CASTLE, EN_PASSANT)
+ * bits 21-23  promotion piece code (NO_PIECE unless the move promotes)
+ *
+ * Piece codes are PieceType.ordinal() + 1, so 0 always means "no piece"
+ * and 0 as a whole move is never a valid move.
+ *
+ * */
+
+public final class PackedMove {
+
+    public static final int NULL_MOVE = 0;
+
+    public static final int NO_PIECE = 0;
+
+    public static final int QUIET = 0;
+    public static final int PAWN_JUMP = 1;
+    public static final int KING_SIDE_CASTLE = 2;
+    public static final int QUEEN_SIDE_CASTLE = 3;
+    public static final int EN_PASSANT = 4;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int CODE_MASK = 0x7;
+
+    private static final int DESTINATION_SHIFT = 6;
+    private static final int MOVED_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 15;
+    private static final int FLAG_SHIFT = 18;
+    private static final int PROMOTION_SHIFT = 21;
+
+    private static final Piece.PieceType[] PIECE_TYPES = Piece.PieceType.values();
+
+    private PackedMove(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int create(final int currentCoordinate,
+                             final int destinationCoordinate,
+                             final int movedPiece,
+                             final int capturedPiece,
+                             final int flag,
+                             final int promotionPiece) {
+        return currentCoordinate
+                | (destinationCoordinate << DESTINATION_SHIFT)
+                | (movedPiece << MOVED_SHIFT)
+                | (capturedPiece << CAPTURED_SHIFT)
+                | (flag << FLAG_SHIFT)
+                | (promotionPiece << PROMOTION_SHIFT);
+    }
+
+    public static int withPromotion(final int move, final int promotionPiece){
+        return (move & ~(CODE_MASK << PROMOTION_SHIFT)) | (promotionPiece << PROMOTION_SHIFT);
+    }
+
+    public static int pieceCode(final Piece.PieceType pieceType){
+        return pieceType == null ? NO_PIECE : pieceType.ordinal() + 1;
+    }
+
+    public static Piece.PieceType pieceType(final int pieceCode){
+        return pieceCode == NO_PIECE ? null : PIECE_TYPES[pieceCode - 1];
+    }
+
+    public static int getCurrentCoordinate(final int move){
+        return move & SQUARE_MASK;
+    }
+
+    public static int getDestinationCoordinate(final int move){
+        return (move >>> DESTINATION_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getMovedPiece(final int move){
+        return (move >>> MOVED_SHIFT) & CODE_MASK;
+    }
+
+    public static int getCapturedPiece(final int move){
+        return (move >>> CAPTURED_SHIFT) & CODE_MASK;
+    }
+
+    public static int getFlag(final int move){
+        return (move >>> FLAG_SHIFT) & CODE_MASK;
+    }
+
+    public static int getPromotionPiece(final int move){
+        return (move >>> PROMOTION_SHIFT) & CODE_MASK;
+    }
+
+    public static boolean isAttack(final int move){
+        return getCapturedPiece(move) != NO_PIECE;
+    }
+
+    public static boolean isPromotion(final int move){
+        return getPromotionPiece(move) != NO_PIECE;
+    }
+
+    public static boolean isCastlingMove(final int move){
+        final int flag = getFlag(move);
+        return flag == KING_SIDE_CASTLE || flag == QUEEN_SIDE_CASTLE;
+    }
+
+    //coordinate notation, e.g. e2e4 or e7e8q
+    public static String toString(final int move){
+        if(move == NULL_MOVE){
+            return "0000";
+        }
+        final String promotion = isPromotion(move) ? pieceType(getPromotionPiece(move)).toString().toLowerCase() : "";
+        return BoardUtils.getPositionAtCoordinate(getCurrentCoordinate(move))
+                + BoardUtils.getPositionAtCoordinate(getDestinationCoordinate(move))
+                + promotion;
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.chess.engine.board;
+
+import com.chess.engine.player.MoveTransition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ *
+ * Perft spread over a ForkJoinPool.
+ *
+ * The first few plies are split into one task per move, walked on immutable Boards so tasks share
+ * nothing. Below that every task copies its position into a SearchBoard and counts on its own.
+ * Each worker thread keeps a cache of (Zobrist key, depth) -> node count, so a subtree reached by
+ * a transposition is counted once per thread instead of every time. The caches are per thread,
+ * never shared, so they need no locking.
+ *
+ * The pool lives as long as this object; call shutdown() when finished with it.
+ *
+ * */
+
+public final class ParallelPerft {
+
+    public static final int DEFAULT_SPLIT_PLIES = 2;
+    public static final int DEFAULT_CACHE_MB = 16;
+
+    private final ForkJoinPool pool;
+    private final int splitPlies;
+    private final ThreadLocal<PerftCache> caches;
+
+    public ParallelPerft(final int threads, final int cacheMegaBytesPerThread) {
+        this(threads, cacheMegaBytesPerThread, DEFAULT_SPLIT_PLIES);
+    }
+
+    public ParallelPerft(final int threads, final int cacheMegaBytesPerThread, final int splitPlies) {
+        this.pool = new ForkJoinPool(threads);
+        this.splitPlies = splitPlies;
+        this.caches = ThreadLocal.withInitial(() -> new PerftCache(cacheMegaBytesPerThread));
+    }
+
+    public long perft(final Board board, final int depth) {
+        return this.pool.invoke(new PerftTask(board, depth, this.splitPlies));
+    }
+
+    //the node count below each root move, in generation order
+    public Map<Move, Long> divide(final Board board, final int depth) {
+
+        final Map<Move, PerftTask> tasks = new LinkedHashMap<>();
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                final PerftTask task = new PerftTask(transition.getTransitionBoard(), depth - 1, this.splitPlies - 1);
+                this.pool.execute(task);
+                tasks.put(move, task);
+            }
+        }
+
+        final Map<Move, Long> divide = new LinkedHashMap<>();
+        for(final Map.Entry<Move, PerftTask> entry : tasks.entrySet()){
+            divide.put(entry.getKey(), entry.getValue().join());
+        }
+        return divide;
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    private static long perft(final SearchBoard board, final int depth, final PerftCache cache) {
+
+        final MoveList moves = board.generateMoves();
+        if(depth == 1){
+            return moves.size();
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final long cachedNodes = cache.probe(zobristKey, depth);
+        if(cachedNodes != PerftCache.MISS){
+            return cachedNodes;
+        }
+
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            board.makeMove(moves.get(i));
+            nodes += perft(board, depth - 1, cache);
+            board.unmakeMove();
+        }
+
+        cache.store(zobristKey, depth, nodes);
+        return nodes;
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+
+        private final Board board;
+        private final int depth;
+        private final int splitPlies;
+
+        PerftTask(final Board board, final int depth, final int splitPlies) {
+            this.board = board;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+
+            if(this.depth == 0){
+                return 1L;
+            }
+
+            //small subtrees are not worth a task each
+            if(this.splitPlies <= 0 || this.depth <= 2){
+                return perft(new SearchBoard(this.board), this.depth, caches.get());
+            }
+
+            final List<PerftTask> tasks = new ArrayList<>();
+            for(final Move move : this.board.currentPlayer().getLegalMoves()){
+                final MoveTransition transition = this.board.currentPlayer().makeMove(move);
+                if(transition.getMoveStatus().isDone()){
+                    tasks.add(new PerftTask(transition.getTransitionBoard(), this.depth - 1, this.splitPlies - 1));
+                }
+            }
+
+            long nodes = 0;
+            for(final PerftTask task : invokeAll(tasks)){
+                nodes += task.join();
+            }
+            return nodes;
+        }
+
+    }
+
+    /**
+     * Fixed size, always replace table of node counts. An entry holds the full key and, packed
+     * into one long, the depth in the low 8 bits and the node count above them.
+     */
+    private static final class PerftCache {
+
+        static final long MISS = -1L;
+
+        private static final int ENTRY_BYTES = 2 * Long.BYTES;
+        private static final int DEPTH_BITS = 8;
+        private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+        private final long[] keys;
+        private final long[] entries;
+        private final int mask;
+
+        PerftCache(final int megaBytes) {
+            final long entryCount = Long.highestOneBit(Math.max(1L, ((long) megaBytes << 20) / ENTRY_BYTES));
+            final int size = (int) Math.min(entryCount, 1 << 30);
+            this.keys = new long[size];
+            this.entries = new long[size];
+            this.mask = size - 1;
+        }
+
+        long probe(final long zobristKey, final int depth) {
+            final int index = index(zobristKey, depth);
+            final long entry = this.entries[index];
+            return this.keys[index] == zobristKey && (entry & DEPTH_MASK) == depth ? entry >>> DEPTH_BITS : MISS;
+        }
+
+        void store(final long zobristKey, final int depth, final long nodes) {
+            final int index = index(zobristKey, depth);
+            this.keys[index] = zobristKey;
+            this.entries[index] = (nodes << DEPTH_BITS) | depth;
+        }
+
+        //the depth is mixed in so the same position at two depths lands in two slots
+        private int index(final long zobristKey, final int depth) {
+            return (int) ((zobristKey ^ (depth * 0x9E3779B97F4A7C15L)) >>> 32) & this.mask;
+        }
+
+    }
+
+}
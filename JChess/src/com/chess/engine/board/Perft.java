@@ -0,0 +1,113 @@
+package com.chess.engine.board;
+
+import com.chess.engine.player.MoveTransition;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Counts the leaf nodes of the legal move tree to a fixed depth, through the same
+ * Player.makeMove and Move.execute path the game itself uses. The counts for well known
+ * positions are published, so any difference points at a move generation bug.
+ *
+ * */
+
+public final class Perft {
+
+    //node counts from https://www.chessprogramming.org/Perft_Results, index 0 is depth 1
+    public static final List<PerftPosition> STANDARD_SUITE = ImmutableList.of(
+            new PerftPosition("start position",
+                    "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+            new PerftPosition("kiwipete",
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48L, 2039L, 97862L, 4085603L, 193690690L),
+            new PerftPosition("position 3",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+            new PerftPosition("position 4",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new PerftPosition("position 5",
+                    "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44L, 1486L, 62379L, 2103487L, 89941194L),
+            new PerftPosition("position 6",
+                    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46L, 2079L, 89890L, 3894594L, 164075551L)
+    );
+
+    private Perft(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long perft(final Board board, final int depth) {
+
+        if(depth == 0){
+            return 1L;
+        }
+
+        final Collection<Move> legalMoves = board.currentPlayer().getLegalMoves();
+
+        //legal moves are fully legal, so the last ply only needs counting
+        if(depth == 1){
+            return legalMoves.size();
+        }
+
+        long nodes = 0;
+        for(final Move move : legalMoves){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                nodes += perft(transition.getTransitionBoard(), depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    //the node count below each root move, in generation order
+    public static Map<Move, Long> divide(final Board board, final int depth) {
+
+        final Map<Move, Long> divide = new LinkedHashMap<>();
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if(transition.getMoveStatus().isDone()){
+                divide.put(move, perft(transition.getTransitionBoard(), depth - 1));
+            }
+        }
+        return divide;
+    }
+
+    public static final class PerftPosition {
+
+        private final String name;
+        private final String fen;
+        private final long[] nodeCounts;
+
+        PerftPosition(final String name, final String fen, final long... nodeCounts) {
+            this.name = name;
+            this.fen = fen;
+            this.nodeCounts = nodeCounts;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getFen() {
+            return this.fen;
+        }
+
+        public int getMaxDepth() {
+            return this.nodeCounts.length;
+        }
+
+        public long getNodeCount(final int depth) {
+            return this.nodeCounts[depth - 1];
+        }
+
+    }
+
+}
@@ -0,0 +1,410 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.King;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/**
+ *
+ * A mutable position the searchers play packed moves on in place.
+ *
+ * makeMove pushes a small undo record (castling rights, en passant tile, castled flags, halfmove
+ * clock, Zobrist key) and unmakeMove pops it, so walking the tree never builds a new Board.
+ * The keys pushed on the way down, together with the game history the root Board came with, are
+ * what isRepetition() looks back through. A SearchBoard is created
+ * from the immutable Board at the root and is not thread safe; every search thread needs its own.
+ *
+ * */
+
+public final class SearchBoard implements BitBoardPosition {
+
+    public static final int MAX_PLY = 256;
+
+    private static final int EMPTY_TILE = -1;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final int[] CASTLING_RIGHTS_MASKS = initCastlingRightsMasks();
+
+    private final long[] pieceBitBoards;
+    private final long[] occupancies;
+    private final int[] boardConfig;
+
+    private Alliance moveMaker;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int castledFlags;
+    private int halfmoveClock;
+    private long zobristKey;
+
+    //positions played before the root since the last capture or pawn move, oldest first
+    private final long[] gameKeys;
+
+    private final int[] moveStack;
+    private final int[] stateStack;
+    private final long[] keyStack;
+    private final MoveList[] moveLists;
+    private final MoveList legalityMoves;
+    private int ply;
+
+    //bumped on every make and unmake so a cached answer is only reused for the position it was made for
+    private long positionStamp;
+    private long legalMovesStamp;
+    private boolean hasLegalMoves;
+
+    public SearchBoard(final Board board) {
+        this.pieceBitBoards = new long[BitBoards.NUM_BIT_BOARDS];
+        this.occupancies = new long[Alliance.values().length];
+        this.boardConfig = new int[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            this.boardConfig[i] = EMPTY_TILE;
+            final Piece piece = board.getPiece(i);
+            if(piece != null){
+                addPiece(BitBoards.index(piece.getPieceAlliance(), piece.getPieceType()), i);
+            }
+        }
+        this.moveMaker = board.getMoveMaker();
+        this.castlingRights = board.getCastlingRights();
+        this.enPassantSquare = board.getEnPassantSquare();
+        this.castledFlags = calculateCastledFlags(board);
+        this.halfmoveClock = board.getHalfmoveClock();
+        this.zobristKey = board.getZobristKey();
+        this.gameKeys = board.getHistoryKeys();
+
+        this.moveStack = new int[MAX_PLY];
+        this.stateStack = new int[MAX_PLY];
+        this.keyStack = new long[MAX_PLY];
+        this.moveLists = new MoveList[MAX_PLY + 1];
+        this.legalityMoves = new MoveList();
+        this.ply = 0;
+        this.positionStamp = 0;
+        this.legalMovesStamp = -1;
+    }
+
+    //an independent copy of the position and the moves that led to it, for handing a subtree to another thread
+    //only the undo records below the current ply are copied, the subtree never reads the ones above
+    public SearchBoard(final SearchBoard other) {
+        this.pieceBitBoards = other.pieceBitBoards.clone();
+        this.occupancies = other.occupancies.clone();
+        this.boardConfig = other.boardConfig.clone();
+        this.moveMaker = other.moveMaker;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.castledFlags = other.castledFlags;
+        this.halfmoveClock = other.halfmoveClock;
+        this.zobristKey = other.zobristKey;
+        this.gameKeys = other.gameKeys;
+
+        this.moveStack = new int[MAX_PLY];
+        this.stateStack = new int[MAX_PLY];
+        this.keyStack = new long[MAX_PLY];
+        System.arraycopy(other.moveStack, 0, this.moveStack, 0, other.ply);
+        System.arraycopy(other.stateStack, 0, this.stateStack, 0, other.ply);
+        System.arraycopy(other.keyStack, 0, this.keyStack, 0, other.ply);
+        this.moveLists = new MoveList[MAX_PLY + 1];
+        this.legalityMoves = new MoveList();
+        this.ply = other.ply;
+        this.positionStamp = 0;
+        this.legalMovesStamp = -1;
+    }
+
+    @Override
+    public long getPieceBitBoard(final Alliance alliance, final PieceType pieceType){
+        return this.pieceBitBoards[BitBoards.index(alliance, pieceType)];
+    }
+
+    @Override
+    public long getOccupancy(final Alliance alliance){
+        return this.occupancies[alliance.ordinal()];
+    }
+
+    @Override
+    public long getOccupancy(){
+        return this.occupancies[0] | this.occupancies[1];
+    }
+
+    @Override
+    public PieceType getPieceType(final int tileCoordinate){
+        final int index = this.boardConfig[tileCoordinate];
+        return index == EMPTY_TILE ? null : PIECE_TYPES[index % BitBoards.NUM_PIECE_TYPES];
+    }
+
+    @Override
+    public Alliance getMoveMaker(){
+        return this.moveMaker;
+    }
+
+    @Override
+    public int getEnPassantSquare(){
+        return this.enPassantSquare;
+    }
+
+    @Override
+    public int getCastlingRights(){
+        return this.castlingRights;
+    }
+
+    @Override
+    public long getZobristKey(){
+        return this.zobristKey;
+    }
+
+    public boolean isCastled(final Alliance alliance){
+        return (this.castledFlags & (1 << alliance.ordinal())) != 0;
+    }
+
+    //number of moves made since this board was created from the root
+    public int getPly(){
+        return this.ply;
+    }
+
+    public int getKingSquare(final Alliance alliance){
+        return BitBoards.firstSquare(getPieceBitBoard(alliance, PieceType.KING));
+    }
+
+    public boolean isInCheck(final Alliance alliance){
+        return MoveGenerator.isSquareAttacked(this, getKingSquare(alliance), alliance.getOpponent());
+    }
+
+    public boolean isInCheck(){
+        return isInCheck(this.moveMaker);
+    }
+
+    public int getHalfmoveClock(){
+        return this.halfmoveClock;
+    }
+
+    /**
+     * Whether this position was already reached, in the search or in the game before it. Only every
+     * other position since the last capture or pawn move can match: the same side has to be to move,
+     * and a position cannot come back within a move by each side.
+     */
+    public boolean isRepetition(){
+        for(int pliesBack = 4; pliesBack <= this.halfmoveClock; pliesBack += 2){
+            final int index = this.ply - pliesBack;
+            if(index < -this.gameKeys.length){
+                return false;
+            }
+            final long key = index >= 0 ? this.keyStack[index] : this.gameKeys[this.gameKeys.length + index];
+            if(key == this.zobristKey){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //a hundred plies without a capture or pawn move, unless the last of them was mate
+    public boolean isFiftyMoveDraw(){
+        return this.halfmoveClock >= BoardUtils.FIFTY_MOVE_PLIES && (!isInCheck() || hasLegalMoves());
+    }
+
+    //drawn by the rules, whatever the pieces say
+    public boolean isDraw(){
+        return isRepetition() || isFiftyMoveDraw();
+    }
+
+    /**
+     * Fills and returns the legal move list kept for the current ply. It stays valid while deeper
+     * plies are searched, and is overwritten the next time this ply generates moves.
+     */
+    public MoveList generateMoves(){
+        //a list is only made for a ply the search reaches, so a copy for a shallow subtree stays small
+        MoveList moves = this.moveLists[this.ply];
+        if(moves == null){
+            moves = new MoveList();
+            this.moveLists[this.ply] = moves;
+        }
+        moves.clear();
+        MoveGenerator.generateLegalMoves(this, this.moveMaker, moves);
+        rememberLegalMoves(!moves.isEmpty());
+        return moves;
+    }
+
+    /**
+     * Whether the side to move has any legal move. The answer is kept until the next make or
+     * unmake, and generateMoves() fills it in too, so a node that has generated its moves can
+     * be scored as mate or stalemate without generating them again.
+     */
+    public boolean hasLegalMoves(){
+        if(this.legalMovesStamp != this.positionStamp){
+            this.legalityMoves.clear();
+            MoveGenerator.generateLegalMoves(this, this.moveMaker, this.legalityMoves);
+            rememberLegalMoves(!this.legalityMoves.isEmpty());
+        }
+        return this.hasLegalMoves;
+    }
+
+    private void rememberLegalMoves(final boolean hasLegalMoves){
+        this.hasLegalMoves = hasLegalMoves;
+        this.legalMovesStamp = this.positionStamp;
+    }
+
+    //plays a legal packed move, as produced by generateMoves() or Move.toPackedMove()
+    public void makeMove(final int move){
+
+        final Alliance alliance = this.moveMaker;
+        final Alliance opponent = alliance.getOpponent();
+
+        this.moveStack[this.ply] = move;
+        this.stateStack[this.ply] = packState();
+        this.keyStack[this.ply] = this.zobristKey;
+        this.ply++;
+        this.positionStamp++;
+        this.zobristKey = Zobrist.updatePieceKey(this, this.zobristKey, move);
+
+        final int currentCoordinate = PackedMove.getCurrentCoordinate(move);
+        final int destinationCoordinate = PackedMove.getDestinationCoordinate(move);
+        final int movedIndex = BitBoards.index(alliance, PackedMove.pieceType(PackedMove.getMovedPiece(move)));
+        final int flag = PackedMove.getFlag(move);
+
+        if(flag == PackedMove.EN_PASSANT){
+            removePiece(BitBoards.index(opponent, PieceType.PAWN), enPassantCaptureSquare(destinationCoordinate, alliance));
+        } else if(PackedMove.isAttack(move)){
+            removePiece(BitBoards.index(opponent, PackedMove.pieceType(PackedMove.getCapturedPiece(move))), destinationCoordinate);
+        }
+
+        removePiece(movedIndex, currentCoordinate);
+        if(PackedMove.isPromotion(move)){
+            addPiece(BitBoards.index(alliance, PackedMove.pieceType(PackedMove.getPromotionPiece(move))), destinationCoordinate);
+        } else {
+            addPiece(movedIndex, destinationCoordinate);
+        }
+
+        if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            final int rookIndex = BitBoards.index(alliance, PieceType.ROOK);
+            removePiece(rookIndex, castleRookStart(destinationCoordinate, flag));
+            addPiece(rookIndex, castleRookDestination(destinationCoordinate, flag));
+            this.castledFlags |= 1 << alliance.ordinal();
+        }
+
+        this.halfmoveClock = PackedMove.isAttack(move) || movedIndex == BitBoards.index(alliance, PieceType.PAWN) ?
+                0 : this.halfmoveClock + 1;
+        this.castlingRights &= CASTLING_RIGHTS_MASKS[currentCoordinate] & CASTLING_RIGHTS_MASKS[destinationCoordinate];
+        this.enPassantSquare = flag == PackedMove.PAWN_JUMP ?
+                currentCoordinate + (BoardUtils.NUM_TILES_PER_ROW * alliance.getDirection()) : NO_SQUARE;
+        this.moveMaker = opponent;
+        this.zobristKey ^= Zobrist.castlingKey(this.castlingRights) ^ Zobrist.enPassantKey(this.enPassantSquare);
+    }
+
+    /**
+     * Passes the turn without moving, for null move pruning. Only the side to move and the en passant
+     * square change. unmakeMove() takes it back like any other move. Never call it while in check.
+     */
+    public void makeNullMove(){
+
+        this.moveStack[this.ply] = PackedMove.NULL_MOVE;
+        this.stateStack[this.ply] = packState();
+        this.keyStack[this.ply] = this.zobristKey;
+        this.ply++;
+        this.positionStamp++;
+
+        this.zobristKey ^= Zobrist.enPassantKey(this.enPassantSquare)
+                ^ Zobrist.sideKey(Alliance.WHITE) ^ Zobrist.sideKey(Alliance.BLACK);
+        this.enPassantSquare = NO_SQUARE;
+        //a pass is no real move, nothing before it counts as a repetition of anything after it
+        this.halfmoveClock = 0;
+        this.moveMaker = this.moveMaker.getOpponent();
+    }
+
+    public void unmakeMove(){
+
+        this.ply--;
+        this.positionStamp++;
+        final int move = this.moveStack[this.ply];
+        unpackState(this.stateStack[this.ply]);
+        this.zobristKey = this.keyStack[this.ply];
+
+        final Alliance alliance = this.moveMaker.getOpponent();
+        final Alliance opponent = this.moveMaker;
+        this.moveMaker = alliance;
+
+        if(move == PackedMove.NULL_MOVE){
+            return;
+        }
+
+        final int currentCoordinate = PackedMove.getCurrentCoordinate(move);
+        final int destinationCoordinate = PackedMove.getDestinationCoordinate(move);
+        final int movedIndex = BitBoards.index(alliance, PackedMove.pieceType(PackedMove.getMovedPiece(move)));
+        final int flag = PackedMove.getFlag(move);
+
+        if(flag == PackedMove.KING_SIDE_CASTLE || flag == PackedMove.QUEEN_SIDE_CASTLE){
+            final int rookIndex = BitBoards.index(alliance, PieceType.ROOK);
+            removePiece(rookIndex, castleRookDestination(destinationCoordinate, flag));
+            addPiece(rookIndex, castleRookStart(destinationCoordinate, flag));
+        }
+
+        removePiece(this.boardConfig[destinationCoordinate], destinationCoordinate);
+        addPiece(movedIndex, currentCoordinate);
+
+        if(flag == PackedMove.EN_PASSANT){
+            addPiece(BitBoards.index(opponent, PieceType.PAWN), enPassantCaptureSquare(destinationCoordinate, alliance));
+        } else if(PackedMove.isAttack(move)){
+            addPiece(BitBoards.index(opponent, PackedMove.pieceType(PackedMove.getCapturedPiece(move))), destinationCoordinate);
+        }
+    }
+
+    private void addPiece(final int index, final int tileCoordinate){
+        final long mask = BitBoards.squareMask(tileCoordinate);
+        this.pieceBitBoards[index] |= mask;
+        this.occupancies[index / BitBoards.NUM_PIECE_TYPES] |= mask;
+        this.boardConfig[tileCoordinate] = index;
+    }
+
+    private void removePiece(final int index, final int tileCoordinate){
+        final long mask = ~BitBoards.squareMask(tileCoordinate);
+        this.pieceBitBoards[index] &= mask;
+        this.occupancies[index / BitBoards.NUM_PIECE_TYPES] &= mask;
+        this.boardConfig[tileCoordinate] = EMPTY_TILE;
+    }
+
+    //castling rights 4 bits, en passant tile + 1 in the next 7, castled flags in the 2 after, halfmove clock from bit 13 up
+    private int packState(){
+        return this.castlingRights | ((this.enPassantSquare + 1) << 4) | (this.castledFlags << 11) | (this.halfmoveClock << 13);
+    }
+
+    private void unpackState(final int state){
+        this.castlingRights = state & 0xF;
+        this.enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        this.castledFlags = (state >>> 11) & 0x3;
+        this.halfmoveClock = state >>> 13;
+    }
+
+    private static int enPassantCaptureSquare(final int destinationCoordinate, final Alliance alliance){
+        return destinationCoordinate + (BoardUtils.NUM_TILES_PER_ROW * alliance.getOppositeDirection());
+    }
+
+    private static int castleRookStart(final int kingDestination, final int flag){
+        return flag == PackedMove.KING_SIDE_CASTLE ? kingDestination + 1 : kingDestination - 2;
+    }
+
+    private static int castleRookDestination(final int kingDestination, final int flag){
+        return flag == PackedMove.KING_SIDE_CASTLE ? kingDestination - 1 : kingDestination + 1;
+    }
+
+    private static int calculateCastledFlags(final Board board){
+        int castledFlags = 0;
+        for(final Alliance alliance : Alliance.values()){
+            final long kings = board.getPieceBitBoard(alliance, PieceType.KING);
+            if(kings != BitBoards.EMPTY && ((King) board.getPiece(BitBoards.firstSquare(kings))).isCastled()){
+                castledFlags |= 1 << alliance.ordinal();
+            }
+        }
+        return castledFlags;
+    }
+
+    //moving from or onto a king or rook home tile clears the rights that depend on it
+    private static int[] initCastlingRightsMasks(){
+        final int allRights = WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE | BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE;
+        final int[] masks = new int[BoardUtils.NUM_TILES];
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            masks[i] = allRights;
+        }
+        masks[60] &= ~(WHITE_KING_SIDE_CASTLE | WHITE_QUEEN_SIDE_CASTLE);
+        masks[63] &= ~WHITE_KING_SIDE_CASTLE;
+        masks[56] &= ~WHITE_QUEEN_SIDE_CASTLE;
+        masks[4] &= ~(BLACK_KING_SIDE_CASTLE | BLACK_QUEEN_SIDE_CASTLE);
+        masks[7] &= ~BLACK_KING_SIDE_CASTLE;
+        masks[0] &= ~BLACK_QUEEN_SIDE_CASTLE;
+        return masks;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/**
+ *
+ * Static exchange evaluation: what a capture wins once every piece that can take back on the
+ * destination tile has, cheapest first.
+ *
+ * The exchange is played on the bitboards alone. Each capture only takes the attacker out of the
+ * occupancy, so sliders lined up behind it join in (x-rays). Either side may stop taking whenever
+ * going on would lose more, and a king only takes when nothing is left to take it back. Pins and
+ * checks are not looked at.
+ *
+ * Piece values are the ones in PieceType, the result is from the moving side's point of view.
+ *
+ * */
+
+public final class StaticExchange {
+
+    private static final PieceType[] CHEAPEST_FIRST = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+
+    //no exchange on one tile is longer than every piece on the board
+    private static final int MAX_EXCHANGE = 32;
+
+    private StaticExchange(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static int evaluate(final BitBoardPosition position, final int move){
+
+        final int from = PackedMove.getCurrentCoordinate(move);
+        final int to = PackedMove.getDestinationCoordinate(move);
+        final Alliance mover = position.getMoveMaker();
+
+        final int[] gain = new int[MAX_EXCHANGE];
+        long occupancy = position.getOccupancy() & ~BitBoards.squareMask(from);
+
+        if(PackedMove.isAttack(move)){
+            gain[0] = PackedMove.pieceType(PackedMove.getCapturedPiece(move)).getPieceValue();
+        }
+        if(PackedMove.getFlag(move) == PackedMove.EN_PASSANT){
+            occupancy &= ~BitBoards.squareMask(to - 8 * mover.getDirection());
+        }
+
+        //the piece standing on the tile, the next one to be taken
+        int onTileValue = PackedMove.pieceType(PackedMove.getMovedPiece(move)).getPieceValue();
+        if(PackedMove.isPromotion(move)){
+            final int promotionValue = PackedMove.pieceType(PackedMove.getPromotionPiece(move)).getPieceValue();
+            gain[0] += promotionValue - onTileValue;
+            onTileValue = promotionValue;
+        }
+
+        Alliance side = mover.getOpponent();
+        int depth = 0;
+
+        while(depth < MAX_EXCHANGE - 1){
+
+            final long attackers = MoveGenerator.attackersTo(position, to, occupancy) & occupancy;
+            final long sideAttackers = attackers & position.getOccupancy(side);
+            if(sideAttackers == BitBoards.EMPTY){
+                break;
+            }
+
+            //least valuable attacker
+            PieceType attackerType = null;
+            long attacker = BitBoards.EMPTY;
+            for(final PieceType pieceType : CHEAPEST_FIRST){
+                final long pieces = sideAttackers & position.getPieceBitBoard(side, pieceType);
+                if(pieces != BitBoards.EMPTY){
+                    attackerType = pieceType;
+                    attacker = pieces & -pieces;
+                    break;
+                }
+            }
+
+            //the king cannot take into a defended tile
+            if(attackerType == PieceType.KING && (attackers & position.getOccupancy(side.getOpponent())) != BitBoards.EMPTY){
+                break;
+            }
+
+            //what this side is up if nobody takes back
+            depth++;
+            gain[depth] = onTileValue - gain[depth - 1];
+
+            occupancy &= ~attacker;
+            onTileValue = attackerType.getPieceValue();
+            side = side.getOpponent();
+        }
+
+        //each side only takes when taking is better than stopping
+        while(depth > 0){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+
+        return gain[0];
+    }
+
+    //taking a piece worth at least the taker never loses, only the rest need the exchange played out
+    public static boolean isLosing(final BitBoardPosition position, final int move){
+        if(!PackedMove.isAttack(move) || PackedMove.isPromotion(move)){
+            return false;
+        }
+        final int attackerValue = PackedMove.pieceType(PackedMove.getMovedPiece(move)).getPieceValue();
+        final int victimValue = PackedMove.pieceType(PackedMove.getCapturedPiece(move)).getPieceValue();
+        return attackerValue > victimValue && evaluate(position, move) < 0;
+    }
+
+}
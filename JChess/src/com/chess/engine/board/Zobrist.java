@@ -0,0 +1,120 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.Random;
+
+/**
+ *
+ * 64 bit Zobrist keys for positions.
+ *
+ * A key is the XOR of one random number per piece on its tile, one for black to move, one per
+ * castling rights combination and one per en passant file. Playing a move only XORs out what
+ * changed and XORs in what replaced it, so keys are kept up to date without rescanning the board.
+ *
+ * The random numbers come from a fixed seed, so a position has the same key in every run and
+ * keys can be written to files.
+ *
+ * */
+
+public final class Zobrist {
+
+    private static final long SEED = 0x4A43686573734CL;
+
+    private static final long[][] PIECE_KEYS = new long[BitBoards.NUM_BIT_BOARDS][BoardUtils.NUM_TILES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[BoardUtils.NUM_TILES_PER_ROW];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        final Random random = new Random(SEED);
+        for(final long[] keys : PIECE_KEYS){
+            for(int i = 0; i < keys.length; i++){
+                keys[i] = random.nextLong();
+            }
+        }
+        //no rights left adds nothing, so a key only changes when the rights really do
+        for(int i = 1; i < CASTLING_KEYS.length; i++){
+            CASTLING_KEYS[i] = random.nextLong();
+        }
+        for(int i = 0; i < EN_PASSANT_KEYS.length; i++){
+            EN_PASSANT_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static long pieceKey(final Alliance alliance, final PieceType pieceType, final int tileCoordinate){
+        return PIECE_KEYS[BitBoards.index(alliance, pieceType)][tileCoordinate];
+    }
+
+    public static long castlingKey(final int castlingRights){
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long enPassantKey(final int enPassantSquare){
+        return enPassantSquare == BitBoardPosition.NO_SQUARE ? 0L : EN_PASSANT_KEYS[enPassantSquare % BoardUtils.NUM_TILES_PER_ROW];
+    }
+
+    public static long sideKey(final Alliance moveMaker){
+        return moveMaker.isBlack() ? BLACK_TO_MOVE_KEY : 0L;
+    }
+
+    //the full key worked out from scratch, used to seed a position and to check incremental keys
+    public static long calculateKey(final BitBoardPosition position){
+        long key = 0L;
+        for(final Alliance alliance : Alliance.values()){
+            for(final PieceType pieceType : PieceType.values()){
+                for(long pieces = position.getPieceBitBoard(alliance, pieceType); pieces != BitBoards.EMPTY; pieces = BitBoards.clearFirstSquare(pieces)){
+                    key ^= pieceKey(alliance, pieceType, BitBoards.firstSquare(pieces));
+                }
+            }
+        }
+        return key ^ sideKey(position.getMoveMaker())
+                ^ castlingKey(position.getCastlingRights())
+                ^ enPassantKey(position.getEnPassantSquare());
+    }
+
+    /**
+     * The key of the position after a packed move, without its castling and en passant parts.
+     * Those depend on how the new position works out its rights, so the caller adds them back.
+     */
+    public static long updatePieceKey(final BitBoardPosition position, final long key, final int move){
+
+        final Alliance alliance = position.getMoveMaker();
+        final Alliance opponent = alliance.getOpponent();
+        final int currentCoordinate = PackedMove.getCurrentCoordinate(move);
+        final int destinationCoordinate = PackedMove.getDestinationCoordinate(move);
+        final PieceType movedType = PackedMove.pieceType(PackedMove.getMovedPiece(move));
+        final int flag = PackedMove.getFlag(move);
+
+        long updatedKey = key ^ castlingKey(position.getCastlingRights())
+                ^ enPassantKey(position.getEnPassantSquare())
+                ^ BLACK_TO_MOVE_KEY;
+
+        if(flag == PackedMove.EN_PASSANT){
+            updatedKey ^= pieceKey(opponent, PieceType.PAWN,
+                    destinationCoordinate + (BoardUtils.NUM_TILES_PER_ROW * alliance.getOppositeDirection()));
+        } else if(PackedMove.isAttack(move)){
+            updatedKey ^= pieceKey(opponent, PackedMove.pieceType(PackedMove.getCapturedPiece(move)), destinationCoordinate);
+        }
+
+        updatedKey ^= pieceKey(alliance, movedType, currentCoordinate);
+        updatedKey ^= PackedMove.isPromotion(move) ?
+                pieceKey(alliance, PackedMove.pieceType(PackedMove.getPromotionPiece(move)), destinationCoordinate) :
+                pieceKey(alliance, movedType, destinationCoordinate);
+
+        if(flag == PackedMove.KING_SIDE_CASTLE){
+            updatedKey ^= pieceKey(alliance, PieceType.ROOK, destinationCoordinate + 1) ^ pieceKey(alliance, PieceType.ROOK, destinationCoordinate - 1);
+        } else if(flag == PackedMove.QUEEN_SIDE_CASTLE){
+            updatedKey ^= pieceKey(alliance, PieceType.ROOK, destinationCoordinate - 2) ^ pieceKey(alliance, PieceType.ROOK, destinationCoordinate + 1);
+        }
+
+        return updatedKey;
+    }
+
+}
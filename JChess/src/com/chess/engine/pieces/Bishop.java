@@ -2,21 +2,13 @@ package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.MagicBitBoards;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-
-import static com.chess.engine.board.Move.*;
 
 public class Bishop extends Piece {
 
-    private final static  int[] CANDIDATE_MOVE_VECTOR_COORDINATES = {-9,-7,7,9};
-
     public Bishop(final Alliance pieceAlliance, final int piecePosition) {
         super(PieceType.BISHOP, piecePosition, pieceAlliance, true);
     }
@@ -27,36 +19,7 @@ public class Bishop extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-
-        final List<Move> legalMoves = new ArrayList<>();
-
-        for(final int candidateCoordinateOffset: CANDIDATE_MOVE_VECTOR_COORDINATES){
-            int candidateDestinationCoordinate = this.piecePosition;
-            while(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-
-                if(isFirstColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset) || isEighthColumnExclusion(candidateDestinationCoordinate, candidateCoordinateOffset)){
-                    break;
-                }
-
-                candidateDestinationCoordinate += candidateCoordinateOffset;
-                if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                    final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                    if (!candidateDestinationTile.isTileOccupied()){
-                        legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                    }else {
-                        final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                        final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-                        if (this.pieceAlliance != pieceAlliance) {
-                            legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-
-
-        return ImmutableList.copyOf(legalMoves);
+        return calculateMovesToTargets(board, MagicBitBoards.bishopAttacks(this.piecePosition, board.getOccupancy()));
     }
 
     @Override
@@ -68,14 +31,4 @@ public class Bishop extends Piece {
     public String toString(){
         return PieceType.BISHOP.toString();
     }
-
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition] && (candidateOffset == -9 || candidateOffset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (candidateOffset == -7 || candidateOffset == 9);
-    }
-
-
 }
@@ -1,22 +1,14 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
-import com.chess.engine.board.Tile;
-import com.google.common.collect.ImmutableList;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-
-import static com.chess.engine.board.Move.*;
 
 public class King extends Piece {
 
-    private static final int[] CANDIDATE_MOVE_COORDIDATE = {-9, -8, -7, -1, 1, 7, 8, 9};
-
     private final boolean isCastled;
     private final boolean kingSideCastleCapable;
     private final boolean queenSideCastleCapable;
@@ -50,38 +42,7 @@ public class King extends Piece {
 
     @Override
     public Collection<Move> calculateLegalMoves(final Board board) {
-
-        final List<Move> legalMoves = new ArrayList<>();
-
-        for(final int currentCandidateOffset: CANDIDATE_MOVE_COORDIDATE){
-
-            final int candidateDestinationCoordinate = this.piecePosition + currentCandidateOffset;
-
-            if(isFirstColumnExclusion(this.piecePosition, currentCandidateOffset) ||
-                    isEighthColumnExclusion(this.piecePosition, currentCandidateOffset)){
-                continue;
-            }
-
-
-            if(BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-
-                final Tile candidateDestinationTile = board.getTile(candidateDestinationCoordinate);
-                if (!candidateDestinationTile.isTileOccupied()){
-                    legalMoves.add(new MajorMove(board, this, candidateDestinationCoordinate));
-                }else{
-                    final Piece pieceAtDestination = candidateDestinationTile.getPiece();
-                    final Alliance pieceAlliance = pieceAtDestination.getPieceAlliance();
-                    if(this.pieceAlliance != pieceAlliance){
-                        legalMoves.add(new MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination));
-                    }
-                }
-
-            }
-
-        }
-
-
-        return ImmutableList.copyOf(legalMoves);
+        return calculateMovesToTargets(board, AttackTables.kingAttacks(this.piecePosition));
     }
 
     @Override
@@ -94,12 +55,4 @@ public class King extends Piece {
         return PieceType.KING.toString();
     }
 
-    private static boolean isFirstColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.FIRST_COLUMN[currentPosition] && (candidateOffset == -9 || candidateOffset == -1 || candidateOffset == 7);
-    }
-
-    private static boolean isEighthColumnExclusion(final int currentPosition, final int candidateOffset){
-        return BoardUtils.EIGHTH_COLUMN[currentPosition] && (candidateOffset == 9 || candidateOffset == 1 || candidateOffset == -7);
-    }
-
 }
@@ -1,8 +1,9 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoards;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
 import com.google.common.collect.ImmutableList;
 
@@ -14,8 +15,6 @@ import static com.chess.engine.board.Move.*;
 
 public class Pawn extends Piece {
 
-    private static final int[] CANDIDATE_MOVE_COORDIDATE = {8, 16 , 7 , 9};
-
     public Pawn(final Alliance pieceAlliance, final int piecePosition) {
         super(PieceType.PAWN, piecePosition, pieceAlliance,true);
     }
@@ -28,98 +27,46 @@ public class Pawn extends Piece {
     public Collection<Move> calculateLegalMoves(final Board board) {
 
         final List<Move> legalMoves = new ArrayList<>();
+        final long emptyTiles = ~board.getOccupancy();
 
-        for(final int currentCandidateOffset : CANDIDATE_MOVE_COORDIDATE){
-
-            final int candidateDestinationCoordinate = this.piecePosition + (this.pieceAlliance.getDirection() * currentCandidateOffset);
+        final long pushes = AttackTables.pawnPushes(this.pieceAlliance, this.piecePosition) & emptyTiles;
+        if(pushes != BitBoards.EMPTY){
 
-            if(!BoardUtils.isValidTileCoordinate(candidateDestinationCoordinate)){
-                continue;
+            final int candidateDestinationCoordinate = BitBoards.firstSquare(pushes);
+            if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
+                legalMoves.add(new PawnPromotion(new PawnMove(board,this,candidateDestinationCoordinate)));
+            }else {
+                legalMoves.add(new PawnMove(board, this, candidateDestinationCoordinate));
             }
 
-            if(currentCandidateOffset == 8 && !board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-
-                if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
-                    legalMoves.add(new PawnPromotion(new PawnMove(board,this,candidateDestinationCoordinate)));
-                }else {
-                    legalMoves.add(new PawnMove(board, this, candidateDestinationCoordinate));
-                }
-
-            }else if (currentCandidateOffset == 16 && this.isFirstMove() &&
-                    (BoardUtils.SEVENTH_RANK[this.piecePosition] && this.getPieceAlliance().isBlack() ||
-                    BoardUtils.SECOND_RANK[this.piecePosition] && this.getPieceAlliance().isWhite())){
-
-                final int behindCandidateDestinationCoordinate = this.piecePosition + (this.pieceAlliance.getDirection() * 8);
-                if(!board.getTile(behindCandidateDestinationCoordinate).isTileOccupied() &&
-                        !board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-
-                    legalMoves.add(new PawnJump(board,this, candidateDestinationCoordinate));
-
-
-                }
-
-            }else if (currentCandidateOffset == 7 &&
-                    !(BoardUtils.EIGHTH_COLUMN[this.piecePosition] && this.pieceAlliance.isWhite() ||  (BoardUtils.FIRST_COLUMN[this.piecePosition] && this.pieceAlliance.isBlack()))){
-
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    final Piece pieceOnCandidate = board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
-                        //todo pawn attack move
-                        if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
-                            legalMoves.add(new PawnPromotion(new PawnAttackMove(board,this,candidateDestinationCoordinate, pieceOnCandidate)));
-                        }else {
-                            legalMoves.add(new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
-                    }
-                }else if(board.getEnPassantPawn() != null){
-
-                    if(board.getEnPassantPawn().getPiecePosition() == (this.piecePosition +(this.pieceAlliance.getOppositeDirection()))){
-                        final Piece pieceOnCandidate = board.getEnPassantPawn();
-                        if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
-
-                            if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
-                                legalMoves.add(new PawnPromotion(new PawnEnPassantAttackMove(board,this,candidateDestinationCoordinate, pieceOnCandidate)));
-                            }else {
-                                legalMoves.add(new PawnEnPassantAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                            }
-                        }
-                    }
-
-                }
-
-
-
-            }else if (currentCandidateOffset == 9 &&
-                    !(BoardUtils.FIRST_COLUMN[this.piecePosition] && this.pieceAlliance.isWhite() ||  (BoardUtils.EIGHTH_COLUMN[this.piecePosition] && this.pieceAlliance.isBlack()))){
-
-                if(board.getTile(candidateDestinationCoordinate).isTileOccupied()){
-                    final Piece pieceOnCandidate = board.getTile(candidateDestinationCoordinate).getPiece();
-                    if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
-
-                        if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
-                            legalMoves.add(new PawnPromotion(new PawnAttackMove(board,this,candidateDestinationCoordinate, pieceOnCandidate)));
-                        }else {
-                            legalMoves.add(new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                        }
+            final long jumps = AttackTables.pawnJumps(this.pieceAlliance, this.piecePosition) & emptyTiles;
+            if(this.isFirstMove() && jumps != BitBoards.EMPTY){
+                legalMoves.add(new PawnJump(board,this, BitBoards.firstSquare(jumps)));
+            }
 
-                    }
-                }else if(board.getEnPassantPawn() != null){
+        }
 
-                    if(board.getEnPassantPawn().getPiecePosition() == (this.piecePosition -(this.pieceAlliance.getOppositeDirection()))){
-                        final Piece pieceOnCandidate = board.getEnPassantPawn();
-                        if(this.pieceAlliance != pieceOnCandidate.getPieceAlliance()){
+        final long pawnAttacks = AttackTables.pawnAttacks(this.pieceAlliance, this.piecePosition);
+        for(long attacks = pawnAttacks & board.getOccupancy(this.pieceAlliance.getOpponent());
+            attacks != BitBoards.EMPTY; attacks = BitBoards.clearFirstSquare(attacks)){
 
-                            if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
-                                legalMoves.add(new PawnPromotion(new PawnEnPassantAttackMove(board,this,candidateDestinationCoordinate, pieceOnCandidate)));
-                            }else {
-                                legalMoves.add(new PawnEnPassantAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
-                            }
+            final int candidateDestinationCoordinate = BitBoards.firstSquare(attacks);
+            final Piece pieceOnCandidate = board.getPiece(candidateDestinationCoordinate);
+            if(this.pieceAlliance.isPawnPromotionSquare(candidateDestinationCoordinate)){
+                legalMoves.add(new PawnPromotion(new PawnAttackMove(board,this,candidateDestinationCoordinate, pieceOnCandidate)));
+            }else {
+                legalMoves.add(new PawnAttackMove(board, this, candidateDestinationCoordinate, pieceOnCandidate));
+            }
 
-                        }
-                    }
+        }
 
-                }
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        if(enPassantPawn != null && this.pieceAlliance != enPassantPawn.getPieceAlliance()){
 
+            //the capture lands on the tile the enemy pawn jumped over
+            final int candidateDestinationCoordinate = enPassantPawn.getPiecePosition() + (this.pieceAlliance.getDirection() * 8);
+            if(BitBoards.isSet(pawnAttacks, candidateDestinationCoordinate)){
+                legalMoves.add(new PawnEnPassantAttackMove(board, this, candidateDestinationCoordinate, enPassantPawn));
             }
 
         }
@@ -142,4 +89,19 @@ public class Pawn extends Piece {
         return new Queen(this.pieceAlliance, this.piecePosition, false);
     }
 
+    public Piece getPromotionPiece(final PieceType pieceType){
+        switch (pieceType) {
+            case QUEEN:
+                return getPromotionPiece();
+            case ROOK:
+                return new Rook(this.pieceAlliance, this.piecePosition, false);
+            case BISHOP:
+                return new Bishop(this.pieceAlliance, this.piecePosition, false);
+            case KNIGHT:
+                return new Knight(this.pieceAlliance, this.piecePosition, false);
+            default:
+                throw new RuntimeException("Should not reach here! A pawn cannot promote to " + pieceType);
+        }
+    }
+
 }
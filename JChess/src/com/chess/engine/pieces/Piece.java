@@ -1,11 +1,15 @@
 package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoards;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
+import com.google.common.collect.ImmutableList;
 
 import java.util.Collection;
 
+import static com.chess.engine.board.Move.*;
+
 public abstract class Piece {
 
     protected final PieceType pieceType;
@@ -74,6 +78,21 @@ public abstract class Piece {
 
     public abstract Piece movePiece(Move move);
 
+    //turns an attack bitboard into moves, skipping tiles held by our own pieces
+    protected Collection<Move> calculateMovesToTargets(final Board board, final long attacks) {
+        final long targets = attacks & ~board.getOccupancy(this.pieceAlliance);
+        final Move[] legalMoves = new Move[BitBoards.count(targets)];
+        int i = 0;
+        for(long remaining = targets; remaining != BitBoards.EMPTY; remaining = BitBoards.clearFirstSquare(remaining)){
+            final int candidateDestinationCoordinate = BitBoards.firstSquare(remaining);
+            final Piece pieceAtDestination = board.getPiece(candidateDestinationCoordinate);
+            legalMoves[i++] = pieceAtDestination == null ?
+                    new MajorMove(board, this, candidateDestinationCoordinate) :
+                    new MajorAttackMove(board, this, candidateDestinationCoordinate, pieceAtDestination);
+        }
+        return ImmutableList.copyOf(legalMoves);
+    }
+
     public enum PieceType{
 
         PAWN("P", 100) {
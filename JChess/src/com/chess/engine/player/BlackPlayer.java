@@ -6,6 +6,7 @@ import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.pieces.Rook;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 
 import java.util.ArrayList;
@@ -17,9 +18,9 @@ import static com.chess.engine.board.Move.*;
 public class BlackPlayer extends Player {
 
 
-    public BlackPlayer(final Board board, final Collection<Move> whiteStandardLegalMoves, final Collection<Move> blackStandardLegalMoves) {
+    public BlackPlayer(final Board board, final Supplier<Collection<Move>> blackLegalMoves) {
 
-        super(board, blackStandardLegalMoves, whiteStandardLegalMoves);
+        super(board, blackLegalMoves);
 
     }
 
@@ -49,7 +50,7 @@ public class BlackPlayer extends Player {
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals, final Collection<Move> opponentsLegals) {
+    protected Collection<Move> calculateKingCastles() {
 
         if (this.isInCheck() || this.isCastled() || !(this.isKingSideCastleCapable() || this.isQueenSideCastleCapable())) {
             return ImmutableList.of();
@@ -65,8 +66,8 @@ public class BlackPlayer extends Player {
                 final Tile rookTile = this.board.getTile(7);
 
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                    if(Player.calculateAttacksOnTile(5, opponentsLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(6, opponentsLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(5, Alliance.WHITE) &&
+                            !this.board.isSquareAttacked(6, Alliance.WHITE) &&
                             rookTile.getPiece().getPieceType().isRook()){
                         kingCastles.add(new KingSideCastleMove(this.board, this.playerKing, 6, (Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 5));
                     }
@@ -80,8 +81,8 @@ public class BlackPlayer extends Player {
 
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
 
-                    if(Player.calculateAttacksOnTile(2, opponentsLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(3, opponentsLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(2, Alliance.WHITE) &&
+                            !this.board.isSquareAttacked(3, Alliance.WHITE) &&
                             rookTile.getPiece().getPieceType().isRook()){
 
                         kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing, 2, (Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 3));
@@ -5,6 +5,8 @@ import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
 import com.chess.engine.pieces.King;
 import com.chess.engine.pieces.Piece;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
@@ -16,17 +18,26 @@ public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    protected final Collection<Move> castleMoves;
-    private final boolean isInCheck;
-
-    Player(final Board board, final Collection<Move> legalMoves, final Collection<Move> opponentMoves){
+    private final Supplier<Collection<Move>> legalMoves;
+    private final Supplier<Collection<Move>> castleMoves;
+    private final Supplier<Boolean> isInCheck;
+    private final Supplier<Boolean> hasLegalMoves;
+
+    /**
+     * Legal moves, castles and check status are worked out on first use and then kept,
+     * so a board that is only evaluated or thrown away never generates moves at all.
+     * Suppliers.memoize makes the first computation safe for concurrent readers.
+     * Check status is a single attack query on the king's tile, not a scan of the opponent's moves,
+     * and whether any legal move exists is asked of the generator once, without playing moves out.
+     */
+    Player(final Board board, final Supplier<Collection<Move>> legalMoves){
 
         this.board = board;
         this.playerKing = establishKing();
-        this.legalMoves = ImmutableList.copyOf(Iterables.concat(legalMoves, calculateKingCastles(legalMoves, opponentMoves)));
-        this.castleMoves = calculateKingCastles(legalMoves, opponentMoves);
-        this.isInCheck = !Player.calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentMoves).isEmpty();
+        this.isInCheck = Suppliers.memoize(() -> this.board.isSquareAttacked(this.playerKing.getPiecePosition(), getAlliance().getOpponent()));
+        this.castleMoves = Suppliers.memoize(this::calculateKingCastles);
+        this.hasLegalMoves = Suppliers.memoize(() -> this.board.hasLegalMoves(getAlliance()));
+        this.legalMoves = Suppliers.memoize(() -> ImmutableList.copyOf(Iterables.concat(legalMoves.get(), this.castleMoves.get())));
 
     }
 
@@ -38,11 +49,11 @@ public abstract class Player {
     }
 
     public Collection<Move> getLegalMoves() {
-        return this.legalMoves;
+        return this.legalMoves.get();
     }
 
     public Collection<Move> getCastleMoves() {
-        return this.castleMoves;
+        return this.castleMoves.get();
     }
 
     public static Collection<Move> calculateAttacksOnTile(int piecePosition, Collection<Move> moves) {
@@ -69,19 +80,19 @@ public abstract class Player {
 
     //TODO implement methods
     public boolean isMoveLegal(final Move move){
-        return this.legalMoves.contains(move);
+        return getLegalMoves().contains(move);
     }
 
     public boolean isInCheck(){
-        return this.isInCheck;
+        return this.isInCheck.get();
     }
 
     public boolean isInCheckMate(){
-        return this.isInCheck && !hasEscapeMoves();
+        return isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isInStaleMate(){
-        return !isInCheck && !hasEscapeMoves();
+        return !isInCheck() && !hasEscapeMoves();
     }
 
     public boolean isKingSideCastleCapable(){
@@ -92,14 +103,13 @@ public abstract class Player {
         return this.playerKing.isQueenSideCastleCapable();
     }
 
+    //false means the game is over for this player, by checkmate or stalemate
+    public boolean hasLegalMoves(){
+        return this.hasLegalMoves.get();
+    }
+
     protected boolean hasEscapeMoves() {
-        for(final Move move: this.legalMoves){
-            final MoveTransition transition = makeMove(move);
-            if(transition.getMoveStatus().isDone()){
-                return true;
-            }
-        }
-        return false;
+        return hasLegalMoves();
     }
 
     public boolean isCastled(){
@@ -115,20 +125,8 @@ public abstract class Player {
             return new MoveTransition(this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
 
-        //if legal then execute the move.
-        final Board transitionBoard = move.execute();
-
-        // check if the board will leave the king in check
-        final Collection<Move> kingAttacks = Player.calculateAttacksOnTile(transitionBoard.currentPlayer().getOpponent().getPlayerKing().getPiecePosition(),
-                transitionBoard.currentPlayer().getLegalMoves());
-
-        //if it is not empty, return movetransition with leaving player in check status
-        if(!kingAttacks.isEmpty()){
-            return new MoveTransition(this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
-        }
-
-        //if legal and doesn't leave check, return a good move transition
-        return new MoveTransition(transitionBoard, move, MoveStatus.DONE);
+        //legal moves never leave the king in check, so the move can simply be executed
+        return new MoveTransition(move.execute(), move, MoveStatus.DONE);
     }
 
 
@@ -138,7 +136,7 @@ public abstract class Player {
 
     public abstract Player getOpponent();
 
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals, Collection<Move> opponentsLegals);
+    protected abstract Collection<Move> calculateKingCastles();
 
     public MoveTransition unMakeMove(final Move move) {
         return new MoveTransition(move.undo(), move, MoveStatus.DONE);
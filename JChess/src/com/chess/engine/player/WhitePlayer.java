@@ -6,6 +6,7 @@ import com.chess.engine.board.Move;
 import com.chess.engine.board.Tile;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.pieces.Rook;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 
 import java.util.ArrayList;
@@ -17,9 +18,9 @@ import static com.chess.engine.board.Move.*;
 public class WhitePlayer extends Player{
 
 
-    public WhitePlayer(final Board board, final Collection<Move> whiteStandardLegalMoves, final Collection<Move> blackStandardLegalMoves) {
+    public WhitePlayer(final Board board, final Supplier<Collection<Move>> whiteLegalMoves) {
 
-        super(board,whiteStandardLegalMoves,blackStandardLegalMoves);
+        super(board, whiteLegalMoves);
 
     }
 
@@ -49,7 +50,7 @@ public class WhitePlayer extends Player{
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals, final Collection<Move> opponentsLegals) {
+    protected Collection<Move> calculateKingCastles() {
 
         if (this.isInCheck() || this.isCastled() || !(this.isKingSideCastleCapable() || this.isQueenSideCastleCapable())) {
             return ImmutableList.of();
@@ -63,8 +64,8 @@ public class WhitePlayer extends Player{
                 final Tile rookTile = this.board.getTile(63);
 
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
-                   if(Player.calculateAttacksOnTile(61, opponentsLegals).isEmpty() &&
-                           Player.calculateAttacksOnTile(62, opponentsLegals).isEmpty() &&
+                   if(!this.board.isSquareAttacked(61, Alliance.BLACK) &&
+                           !this.board.isSquareAttacked(62, Alliance.BLACK) &&
                            rookTile.getPiece().getPieceType().isRook()){
                        //todo add a castlemove!
                        kingCastles.add(new KingSideCastleMove(this.board, this.playerKing, 62, (Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 61));
@@ -78,8 +79,8 @@ public class WhitePlayer extends Player{
 
                 if(rookTile.isTileOccupied() && rookTile.getPiece().isFirstMove()){
 
-                    if(Player.calculateAttacksOnTile(58, opponentsLegals).isEmpty() &&
-                            Player.calculateAttacksOnTile(59, opponentsLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(58, Alliance.BLACK) &&
+                            !this.board.isSquareAttacked(59, Alliance.BLACK) &&
                             rookTile.getPiece().getPieceType().isRook()){
 
                         kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing, 58, (Rook)rookTile.getPiece(), rookTile.getTileCoordinate(), 59));
@@ -2,17 +2,55 @@ package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
-import com.chess.engine.player.MoveTransition;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.concurrent.TimeUnit;
 
 
 public class AlphaBeta implements MoveStrategy {
 
+    private static final int CLOCK_CHECK_NODES = 1024;
+
     private final BoardEvaluator boardEvaluator;
     private final int searchDepth;
+    private final TranspositionTable transpositionTable;
+    private final MoveOrderer moveOrderer;
+    private final QuiescenceSearch quiescence;
+
+    private long deadline;
+    private boolean stopped;
+    private boolean rootInBitbase;
+    private long nodes;
 
     public AlphaBeta(final int searchDepth) {
+        this(searchDepth, new TranspositionTable());
+    }
+
+    public AlphaBeta(final int searchDepth, final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, SearchParameters.SELECTIVE);
+    }
+
+    public AlphaBeta(final int searchDepth,
+                     final TranspositionTable transpositionTable,
+                     final SearchParameters searchParameters) {
         this.boardEvaluator = new StandardBoardEvaluator();
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.moveOrderer = new MoveOrderer();
+        this.quiescence = new QuiescenceSearch(this.boardEvaluator, this.moveOrderer, searchParameters,
+                new QuiescenceSearch.Cancellation() {
+                    @Override
+                    public boolean isOutOfTime() {
+                        return AlphaBeta.this.isOutOfTime();
+                    }
+
+                    @Override
+                    public boolean isStopped() {
+                        return AlphaBeta.this.stopped;
+                    }
+                });
     }
 
     @Override
@@ -22,6 +60,50 @@ public class AlphaBeta implements MoveStrategy {
 
     @Override
     public Move execute(Board board) {
+        return execute(board, TimeControl.fixedDepth(this.searchDepth));
+    }
+
+    @Override
+    public Move execute(final Board board, final TimeControl timeControl) {
+
+        System.out.println(board.currentPlayer() + " Thinking with " + timeControl);
+
+        final long startTime = System.nanoTime();
+        this.moveOrderer.newSearch();
+
+        //the tree is walked on one mutable board, moves are made and unmade in place
+        final SearchBoard searchBoard = new SearchBoard(board);
+        this.rootInBitbase = Bitbases.probe(searchBoard) != Bitbases.UNKNOWN;
+
+        //Holder best move, from the last iteration that finished.
+        Move bestMove = null;
+
+        //each iteration leaves its best move in the table, so the next one searches it first
+        for (int depth = 1; depth <= timeControl.getMaxDepth(); depth++) {
+
+            //the first iteration always finishes, so there is a move to play however short the budget
+            this.deadline = depth == 1 ? Long.MAX_VALUE : timeControl.getDeadline(startTime);
+            this.stopped = false;
+
+            final Move iterationMove = searchRoot(board, searchBoard, depth);
+            if (this.stopped) {
+                break;
+            }
+
+            bestMove = iterationMove;
+            System.out.println("depth " + depth + " " + bestMove + " " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+
+            if (!timeControl.hasTimeForNextIteration(startTime)) {
+                break;
+            }
+        }
+
+        //return the best move
+        return bestMove;
+    }
+
+    private Move searchRoot(final Board board, final SearchBoard searchBoard, final int depth) {
 
         //Holder best move.
         Move bestMove = null;
@@ -33,34 +115,33 @@ public class AlphaBeta implements MoveStrategy {
         //holder for current value
         int currentValue;
 
-        System.out.println(board.currentPlayer() + " Thinking with depth = " + this.searchDepth);
-
-        //loop all moves
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
+        //loop all moves, the best one from an earlier search first
+        for (final Move move : this.transpositionTable.orderRootMoves(searchBoard.getZobristKey(), board.currentPlayer().getLegalMoves())) {
 
-            //for all moves, make that move and get the transition board
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            //make the move, every root move is already legal
+            searchBoard.makeMove(move.toPackedMove());
 
-            //if the moveTransition confirms the board is a valid move
-            if (moveTransition.getMoveStatus().isDone()) {
+            //then call minimax on that move.
+            currentValue = board.currentPlayer().getAlliance().isWhite() ?
+                    min(searchBoard, depth - 1, highestSeenValue, lowestSeenValue) :
+                    max(searchBoard, depth - 1, highestSeenValue, lowestSeenValue);
 
-                //then call minimax on that move.
-                currentValue = board.currentPlayer().getAlliance().isWhite() ?
-                        min(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                        max(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue, lowestSeenValue);
+            searchBoard.unmakeMove();
 
-                //minimax will traverse all the possible moves and record the best scores
-                //in alpha beta, can't be equal because it'll be returning the best back up
-                if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
-                    highestSeenValue = currentValue;
-                    bestMove = move;
-                }
+            if (this.stopped) {
+                return null;
+            }
 
-                if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
-                    lowestSeenValue = currentValue;
-                    bestMove = move;
-                }
+            //minimax will traverse all the possible moves and record the best scores
+            //in alpha beta, can't be equal because it'll be returning the best back up
+            if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
+                highestSeenValue = currentValue;
+                bestMove = move;
+            }
 
+            if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
+                lowestSeenValue = currentValue;
+                bestMove = move;
             }
         }
 
@@ -73,70 +154,191 @@ public class AlphaBeta implements MoveStrategy {
 //            System.out.println(lowestSeenValue);
 //        }
 
-        //return the best move
+        //the root is searched with an open window, so its score is exact
+        if (bestMove != null) {
+            this.transpositionTable.store(searchBoard.getZobristKey(), bestMove.toPackedMove(),
+                    board.currentPlayer().getAlliance().isWhite() ? highestSeenValue : lowestSeenValue,
+                    depth, TranspositionTable.EXACT);
+        }
+
         return bestMove;
 
     }
 
-    private int max(final Board board,
+    //looks at the clock every CLOCK_CHECK_NODES nodes, once out of time every node unwinds at once
+    private boolean isOutOfTime() {
+        if (!this.stopped && (++this.nodes & (CLOCK_CHECK_NODES - 1)) == 0 && System.nanoTime() >= this.deadline) {
+            this.stopped = true;
+        }
+        return this.stopped;
+    }
+
+    //an ending with a bitbase already has its result, searching under it cannot change that
+    //once the root is in one the search still has to find the way to the mate, only draws end early
+    private boolean isKnownResult(final SearchBoard board) {
+        final int result = Bitbases.probe(board);
+        return result == Bitbases.DRAW || (result != Bitbases.UNKNOWN && !this.rootInBitbase);
+    }
+
+    private int max(final SearchBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
 
-        if (depth == 0 || isEndGameScenario(board)) {
+        //a repetition or fifty quiet moves end the game here, however much is still on the board
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (isKnownResult(board)) {
             return this.boardEvaluator.evaluate(board, depth);
         }
 
+        //the horizon is left to the quiescence search, so it never lands in the middle of an exchange
+        if (depth == 0) {
+            return this.quiescence.max(board, highest, lowest);
+        }
+
+        if (isOutOfTime()) {
+            return 0;
+        }
+
+        //a result from a deep enough search of this position may settle it straight away
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
+        }
+
         //keep track of alpha
         int currentHighest = highest;
+        int bestMove = PackedMove.NULL_MOVE;
 
         //traverse tree until leaf
-        for (final Move move : (board.currentPlayer().getLegalMoves())) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getTransitionBoard(), depth-1, currentHighest, lowest));
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
 
-                //if max find something better than lowest, min will always take the lowest (whatever it was before)
-                if (currentHighest >= lowest) {
-                    return lowest;
-                }
+        //the best move found here last time is the most likely to cut off again, then captures, killers and history
+        this.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int value = min(board, depth-1, currentHighest, lowest);
+            board.unmakeMove();
+
+            //an unfinished search proves nothing, so it must not reach the table
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value > currentHighest) {
+                currentHighest = value;
+                bestMove = moves.get(i);
+            }
+
+            //if max find something better than lowest, min will always take the lowest (whatever it was before)
+            if (currentHighest >= lowest) {
+                this.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, lowest, depth, TranspositionTable.LOWER_BOUND);
+                return lowest;
             }
         }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentHighest, depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest));
         return currentHighest;
     }
 
-    private int min(final Board board,
+    private int min(final SearchBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
 
-        if (depth == 0 || isEndGameScenario(board)) {
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (isKnownResult(board)) {
             return this.boardEvaluator.evaluate(board, depth);
         }
 
+        if (depth == 0) {
+            return this.quiescence.min(board, highest, lowest);
+        }
+
+        if (isOutOfTime()) {
+            return 0;
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
+        }
+
         //keep track of beta
         int currentLowest = lowest;
+        int bestMove = PackedMove.NULL_MOVE;
 
-        for (final Move move : (board.currentPlayer().getLegalMoves())) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getTransitionBoard(), depth-1, highest, currentLowest));
+        final MoveList moves = board.generateMoves();
 
-                // if min finds something lower than highest, max will always take highest path (whatever it was better)
-                if (currentLowest <= highest) {
-                    return highest;
-                }
-            }
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
         }
-        return currentLowest;
-    }
 
+        this.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
 
-    //TODO check if this is correct board evaluation to return.
-    private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
-    }
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int value = max(board, depth-1, highest, currentLowest);
+            board.unmakeMove();
+
+            //an unfinished search proves nothing, so it must not reach the table
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value < currentLowest) {
+                currentLowest = value;
+                bestMove = moves.get(i);
+            }
 
+            // if min finds something lower than highest, max will always take highest path (whatever it was better)
+            if (currentLowest <= highest) {
+                this.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, highest, depth, TranspositionTable.UPPER_BOUND);
+                return highest;
+            }
+        }
 
+        this.transpositionTable.store(zobristKey, bestMove, currentLowest, depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest));
+        return currentLowest;
+    }
 
 }
@@ -29,46 +29,32 @@ public class AlphaBetaAtomic implements MoveStrategy {
 
         System.out.println(board.currentPlayer() + " Thinking with depth = " + this.searchDepth);
 
-        final AtomicReference<Move> bestMove = null;
+        final AtomicReference<Move> bestMove = new AtomicReference<>();
         final AtomicInteger highestSeenValue = new AtomicInteger(Integer.MIN_VALUE);
         final AtomicInteger lowestSeenValue = new AtomicInteger(Integer.MAX_VALUE);
-        AtomicInteger currentValue = new AtomicInteger(Integer.MAX_VALUE);
-
-
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-
-
-
-            }
-        });
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
 
         board.currentPlayer().getLegalMoves().stream().parallel().forEach((m) -> {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(m);
 
             if (moveTransition.getMoveStatus().isDone()) {
 
-
-                //synchronized (currentValue) {
-
-                    currentValue.set(board.currentPlayer().getAlliance().isWhite() ?
-                            min(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue.get(), lowestSeenValue.get()) :
-                            max(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue.get(), lowestSeenValue.get())
-                    );
-
-                //}
-
-                if (board.currentPlayer().getAlliance().isWhite() && currentValue.get() > highestSeenValue.get()) {
-                    highestSeenValue.set(currentValue.get());
-                    bestMove.set(m);
-                }
-
-                if (board.currentPlayer().getAlliance().isBlack() && currentValue.get() < lowestSeenValue.get()) {
-                    lowestSeenValue.set(currentValue.get());
-
-                    bestMove.set(m);
-                    //bestMove = m;
+                //every thread has its own value, only the bounds and the best move are shared
+                final int currentValue = isWhite ?
+                        min(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue.get(), lowestSeenValue.get()) :
+                        max(moveTransition.getTransitionBoard(), this.searchDepth - 1, highestSeenValue.get(), lowestSeenValue.get());
+
+                //the comparison and both updates in one step, or another thread can slip in between them
+                synchronized (bestMove) {
+                    if (isWhite && currentValue > highestSeenValue.get()) {
+                        highestSeenValue.set(currentValue);
+                        bestMove.set(m);
+                    }
+
+                    if (!isWhite && currentValue < lowestSeenValue.get()) {
+                        lowestSeenValue.set(currentValue);
+                        bestMove.set(m);
+                    }
                 }
 
             }
@@ -135,7 +121,7 @@ public class AlphaBetaAtomic implements MoveStrategy {
 
     //TODO check if this is correct board evaluation to return.
     private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
+        return !board.currentPlayer().hasLegalMoves();
     }
 
 
@@ -36,10 +36,10 @@ public class AlphaBetaThread implements MoveStrategy {
 //
 //        int currentValue;
 
-        AtomicReference<Move> bestMove = null;
-        AtomicInteger highestSeenValue = new AtomicInteger(Integer.MIN_VALUE);
-        AtomicInteger lowestSeenValue = new AtomicInteger(Integer.MAX_VALUE);
-        AtomicInteger currentValue = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicReference<Move> bestMove = new AtomicReference<>();
+        final AtomicInteger highestSeenValue = new AtomicInteger(Integer.MIN_VALUE);
+        final AtomicInteger lowestSeenValue = new AtomicInteger(Integer.MAX_VALUE);
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
 
         System.out.println(board.currentPlayer() + " Thinking with depth = " + this.searchDepth);
 
@@ -49,38 +49,31 @@ public class AlphaBetaThread implements MoveStrategy {
 
         for (final Move move : board.currentPlayer().getLegalMoves()) {
 
-            es.submit(
+            es.submit(() -> {
 
-                    new Thread(() -> {
+                final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+                if (moveTransition.getMoveStatus().isDone()) {
 
-                        final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                        if (moveTransition.getMoveStatus().isDone()) {
+                    //every task has its own value, only the bounds and the best move are shared
+                    final int currentValue = isWhite ?
+                            min(moveTransition.getTransitionBoard(), depth.get() - 1, highestSeenValue.get(), lowestSeenValue.get()) :
+                            max(moveTransition.getTransitionBoard(), depth.get() - 1, highestSeenValue.get(), lowestSeenValue.get());
 
-                            //synchronized (currentValue) {
-
-                            currentValue.set(board.currentPlayer().getAlliance().isWhite() ?
-                                    min(moveTransition.getTransitionBoard(), depth.get() - 1, highestSeenValue.get(), lowestSeenValue.get()) :
-                                    max(moveTransition.getTransitionBoard(), depth.get() - 1, highestSeenValue.get(), lowestSeenValue.get())
-                            );
-
-                            //}
-
-                            if (board.currentPlayer().getAlliance().isWhite() && currentValue.get() > highestSeenValue.get()) {
-                                highestSeenValue.set(currentValue.get());
-                                bestMove.set(move);
-                            }
-
-                            if (board.currentPlayer().getAlliance().isBlack() && currentValue.get() < lowestSeenValue.get()) {
-                                lowestSeenValue.set(currentValue.get());
-
-                                bestMove.set(move);
-                                //bestMove = m;
-                            }
+                    //the comparison and both updates in one step, or another task can slip in between them
+                    synchronized (bestMove) {
+                        if (isWhite && currentValue > highestSeenValue.get()) {
+                            highestSeenValue.set(currentValue);
+                            bestMove.set(move);
                         }
 
-                    })
+                        if (!isWhite && currentValue < lowestSeenValue.get()) {
+                            lowestSeenValue.set(currentValue);
+                            bestMove.set(move);
+                        }
+                    }
+                }
 
-            );
+            });
 
         }
 
@@ -152,7 +145,7 @@ public class AlphaBetaThread implements MoveStrategy {
 
     //TODO check if this is correct board evaluation to return.
     private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
+        return !board.currentPlayer().hasLegalMoves();
     }
 
 
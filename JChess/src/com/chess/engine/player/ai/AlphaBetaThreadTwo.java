@@ -2,8 +2,13 @@ package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
-import com.chess.engine.player.MoveTransition;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -11,19 +16,50 @@ import java.util.concurrent.TimeUnit;
 
 public class AlphaBetaThreadTwo implements MoveStrategy {
 
+    private static final int THREAD_COUNT = 6;
+    private static final int CLOCK_CHECK_NODES = 1024;
+
     private final BoardEvaluator boardEvaluator;
     private final int searchDepth;
+    private final TranspositionTable transpositionTable;
+    private final SearchParameters searchParameters;
+
+    //the root moves are searched on one pool kept from move to move, call shutdown() when the game is over
+    private final ExecutorService pool;
+
+    //killers, history and the node count are per thread, they would only get in each other's way shared
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
 
+    //written under handleSync, read by every task as its window
+    private volatile Move bestMove = null;
+    private volatile int highestSeenValue = Integer.MIN_VALUE;
+    private volatile int lowestSeenValue = Integer.MAX_VALUE;
 
-    private Move bestMove = null;
-    private int highestSeenValue = Integer.MIN_VALUE;
-    private int lowestSeenValue = Integer.MAX_VALUE;
-    private int currentValue;
+    private volatile long deadline;
+    private volatile boolean stopped;
 
 
     public AlphaBetaThreadTwo(final int searchDepth) {
+        this(searchDepth, new TranspositionTable());
+    }
+
+    public AlphaBetaThreadTwo(final int searchDepth, final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, SearchParameters.SELECTIVE);
+    }
+
+    public AlphaBetaThreadTwo(final int searchDepth,
+                              final TranspositionTable transpositionTable,
+                              final SearchParameters searchParameters) {
         this.boardEvaluator = new StandardBoardEvaluator();
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.searchParameters = searchParameters;
+        //daemon threads, an idle pool must not keep the application alive
+        this.pool = Executors.newFixedThreadPool(THREAD_COUNT, runnable -> {
+            final Thread thread = new Thread(runnable, "AlphaBetaThreadTwo worker");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -33,64 +69,76 @@ public class AlphaBetaThreadTwo implements MoveStrategy {
 
     @Override
     public Move execute(Board board) {
+        return execute(board, TimeControl.fixedDepth(this.searchDepth));
+    }
+
+    @Override
+    public Move execute(final Board board, final TimeControl timeControl) {
 
+        System.out.println(board.currentPlayer() + " Thinking with " + timeControl);
 
-        System.out.println(board.currentPlayer() + " Thinking with depth = " + this.searchDepth);
+        final long startTime = System.nanoTime();
 
-        ExecutorService es = Executors.newFixedThreadPool(6);
+        //the best move of the last iteration that finished
+        Move completedMove = null;
 
-        //loop all moves
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
+        for (int depth = 1; depth <= timeControl.getMaxDepth(); depth++) {
 
-            es.submit(() -> {
+            //the first iteration always finishes, so there is a move to play however short the budget
+            this.deadline = depth == 1 ? Long.MAX_VALUE : timeControl.getDeadline(startTime);
+            this.stopped = false;
 
-                        //for all moves, make that move and get the transition board
-                        final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            final Move iterationMove = searchRoot(board, depth);
+            if (this.stopped) {
+                break;
+            }
 
-                        //if the moveTransition confirms the board is a valid move
-                        if (moveTransition.getMoveStatus().isDone()) {
+            completedMove = iterationMove;
+            System.out.println("depth " + depth + " " + completedMove + " " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
 
-                            //then call minimax on that move.
+            if (!timeControl.hasTimeForNextIteration(startTime)) {
+                break;
+            }
+        }
 
-                            final int curValue = board.currentPlayer().getAlliance().isWhite() ?
-                                    min(moveTransition.getTransitionBoard(), searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                                    max(moveTransition.getTransitionBoard(), searchDepth - 1, highestSeenValue, lowestSeenValue);
+        //return the best move
+        return completedMove;
+    }
 
-                            handleSync(board, move, curValue);
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
 
-                            /*
-                            currentValue = board.currentPlayer().getAlliance().isWhite() ?
-                                    min(moveTransition.getTransitionBoard(), searchDepth - 1, highestSeenValue, lowestSeenValue) :
-                                    max(moveTransition.getTransitionBoard(), searchDepth - 1, highestSeenValue, lowestSeenValue);
+    private Move searchRoot(final Board board, final int depth) {
 
+        this.bestMove = null;
+        this.highestSeenValue = Integer.MIN_VALUE;
+        this.lowestSeenValue = Integer.MAX_VALUE;
 
-//                            if (board.currentPlayer().getAlliance().isWhite() && currentValue < holderInt) {
-//                                currentValue = holderInt;
-//                            }
-//
-//                            if (board.currentPlayer().getAlliance().isBlack() && currentValue > holderInt) {
-//                                currentValue = holderInt;
-//                            }
+        final List<Callable<Void>> tasks = new ArrayList<>();
 
+        //loop all moves, the best one from an earlier search is handed out first
+        final long zobristKey = board.getZobristKey();
+        for (final Move move : this.transpositionTable.orderRootMoves(zobristKey, board.currentPlayer().getLegalMoves())) {
 
-                            //minimax will traverse all the possible moves and record the best scores
-                            //in alpha beta, can't be equal because it'll be returning the best back up
-                            if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
-                                highestSeenValue = currentValue;
-                                bestMove = move;
-                            }
+            tasks.add(() -> {
 
-                            if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
-                                lowestSeenValue = currentValue;
-                                bestMove = move;
-                            }
-                            */
+                        //every task walks its own mutable board
+                        final SearchBoard searchBoard = new SearchBoard(board);
 
+                        //make the move, every root move is already legal
+                        searchBoard.makeMove(move.toPackedMove());
 
+                        //then call minimax on that move.
 
+                        final int curValue = board.currentPlayer().getAlliance().isWhite() ?
+                                min(searchBoard, depth - 1, highestSeenValue, lowestSeenValue) :
+                                max(searchBoard, depth - 1, highestSeenValue, lowestSeenValue);
 
-                        }
+                        handleSync(board, move, curValue);
 
+                        return null;
                     }
 
             );
@@ -98,103 +146,218 @@ public class AlphaBetaThreadTwo implements MoveStrategy {
         }
 
 
-//        if (board.currentPlayer().getAlliance().isWhite() ) {
-//            System.out.println(highestSeenValue);
-//        }
-//
-//        if (board.currentPlayer().getAlliance().isBlack() ) {
-//            System.out.println(lowestSeenValue);
-//        }
-
         try {
-            es.shutdown();
-            es.awaitTermination(100000, TimeUnit.MINUTES);
+            this.pool.invokeAll(tasks);
         } catch (Exception e) {
             System.out.println(e);
+            this.stopped = true;
         }
 
-        System.out.println(bestMove);
+        if (this.stopped) {
+            return null;
+        }
+
+        if (bestMove != null) {
+            this.transpositionTable.store(zobristKey, bestMove.toPackedMove(),
+                    board.currentPlayer().getAlliance().isWhite() ? highestSeenValue : lowestSeenValue,
+                    depth, TranspositionTable.EXACT);
+        }
 
-        //return the best move
         return bestMove;
 
     }
 
+    //every thread looks at the clock itself every CLOCK_CHECK_NODES of its nodes, once out of time every node unwinds at once
+    private boolean isOutOfTime(final Worker worker) {
+        if (!this.stopped && (++worker.nodes & (CLOCK_CHECK_NODES - 1)) == 0 && System.nanoTime() >= this.deadline) {
+            this.stopped = true;
+        }
+        return this.stopped;
+    }
 
-    private synchronized void handleSync(final Board board, final Move move, final int value){
 
-        currentValue = value;
+    private synchronized void handleSync(final Board board, final Move move, final int value){
 
-        if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
-            highestSeenValue = currentValue;
+        if (board.currentPlayer().getAlliance().isWhite() && value > highestSeenValue) {
+            highestSeenValue = value;
             bestMove = move;
         }
 
-        if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
-            lowestSeenValue = currentValue;
+        if (board.currentPlayer().getAlliance().isBlack() && value < lowestSeenValue) {
+            lowestSeenValue = value;
             bestMove = move;
         }
 
     }
 
-    private int max(final Board board,
+    private int max(final SearchBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
 
-        if (depth == 0 || isEndGameScenario(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        //a repetition or fifty quiet moves end the game here, however much is still on the board
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        //the horizon is left to the quiescence search, so it never lands in the middle of an exchange
+        if (depth == 0) {
+            return this.workers.get().quiescence.max(board, highest, lowest);
+        }
+
+        if (isOutOfTime(this.workers.get())) {
+            return 0;
+        }
+
+        //a result from a deep enough search of this position may settle it straight away
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
         }
 
         //keep track of alpha
         int currentHighest = highest;
+        int bestMove = PackedMove.NULL_MOVE;
 
         //traverse tree until leaf
-        for (final Move move : (board.currentPlayer().getLegalMoves())) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getTransitionBoard(), depth - 1, currentHighest, lowest));
-
-                //if max find something better than lowest, min will always take the lowest (whatever it was before)
-                if (currentHighest >= lowest) {
-                    return lowest;
-                }
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        //the best move found here last time is the most likely to cut off again, then captures, killers and history
+        this.workers.get().moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int value = min(board, depth-1, currentHighest, lowest);
+            board.unmakeMove();
+
+            //an unfinished search proves nothing, so it must not reach the table
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value > currentHighest) {
+                currentHighest = value;
+                bestMove = moves.get(i);
+            }
+
+            //if max find something better than lowest, min will always take the lowest (whatever it was before)
+            if (currentHighest >= lowest) {
+                this.workers.get().moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, lowest, depth, TranspositionTable.LOWER_BOUND);
+                return lowest;
             }
         }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentHighest, depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest));
         return currentHighest;
     }
 
-    private int min(final Board board,
+    private int min(final SearchBoard board,
                     final int depth,
                     final int highest,
                     final int lowest) {
 
-        if (depth == 0 || isEndGameScenario(board)) {
-            return this.boardEvaluator.evaluate(board, depth);
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (depth == 0) {
+            return this.workers.get().quiescence.min(board, highest, lowest);
+        }
+
+        if (isOutOfTime(this.workers.get())) {
+            return 0;
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
         }
 
         //keep track of beta
         int currentLowest = lowest;
+        int bestMove = PackedMove.NULL_MOVE;
 
-        for (final Move move : (board.currentPlayer().getLegalMoves())) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getTransitionBoard(), depth - 1, highest, currentLowest));
+        final MoveList moves = board.generateMoves();
 
-                // if min finds something lower than highest, max will always take highest path (whatever it was better)
-                if (currentLowest <= highest) {
-                    return highest;
-                }
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        this.workers.get().moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int value = max(board, depth-1, highest, currentLowest);
+            board.unmakeMove();
+
+            //an unfinished search proves nothing, so it must not reach the table
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value < currentLowest) {
+                currentLowest = value;
+                bestMove = moves.get(i);
+            }
+
+            // if min finds something lower than highest, max will always take highest path (whatever it was better)
+            if (currentLowest <= highest) {
+                this.workers.get().moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, highest, depth, TranspositionTable.UPPER_BOUND);
+                return highest;
             }
         }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentLowest, depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest));
         return currentLowest;
     }
 
+    private final class Worker implements QuiescenceSearch.Cancellation {
+        private final MoveOrderer moveOrderer = new MoveOrderer();
+        private final QuiescenceSearch quiescence = new QuiescenceSearch(AlphaBetaThreadTwo.this.boardEvaluator,
+                this.moveOrderer, AlphaBetaThreadTwo.this.searchParameters, this);
+        private long nodes;
 
-    //TODO check if this is correct board evaluation to return.
-    private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
-    }
+        @Override
+        public boolean isOutOfTime() {
+            return AlphaBetaThreadTwo.this.isOutOfTime(this);
+        }
 
+        @Override
+        public boolean isStopped() {
+            return AlphaBetaThreadTwo.this.stopped;
+        }
+    }
 
 }
@@ -0,0 +1,419 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.AttackTables;
+import com.chess.engine.board.BitBoards;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ *
+ * Builds the win/draw bitbases of the EndgameMaterial endings by retrograde analysis.
+ *
+ * One pass over every placement marks the illegal ones, the mates and, for KPK, the positions won
+ * straight away by promoting into a lost KQK or KRK. From there it works backwards a move at a time:
+ * every position the strong side can reach a lost position from is won, and a weak king position is
+ * lost once each of its replies lands in a won one. Captures of a strong piece always draw, none of
+ * these endings can be won with what is left. Whatever is never reached is a draw.
+ *
+ * The first pass and each level of the backwards walk are split over a ForkJoinPool. Positions only
+ * ever go from unresolved to won, so threads racing on one of them both write the same thing.
+ *
+ * The file is a short header and one bit per index, set when the strong side wins.
+ *
+ * */
+
+public final class BitbaseGenerator {
+
+    static final int MAGIC = 0x4A434242;
+    static final int HEADER_BYTES = 8;
+
+    private static final byte UNRESOLVED = 0;
+    private static final byte STRONG_WINS = 1;
+    private static final byte ILLEGAL = 2;
+
+    //what the weak king can do
+    private static final int ESCAPES = 0;
+    private static final int LOST = 1;
+    private static final int MATED = 2;
+    private static final int STALEMATED = 3;
+
+    //ranges smaller than this are walked by one thread
+    private static final int SLICE_SIZE = 1 << 12;
+
+    private final ForkJoinPool pool;
+    private final Map<EndgameMaterial, long[]> generated;
+
+    public BitbaseGenerator(final int threads) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.generated = new EnumMap<>(EndgameMaterial.class);
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    //one bit per index, KPK generates the KQK and KRK it promotes into first
+    public synchronized long[] generate(final EndgameMaterial material) {
+        long[] bits = this.generated.get(material);
+        if(bits == null){
+            final long[] queenBits = material == EndgameMaterial.KPK ? generate(EndgameMaterial.KQK) : null;
+            final long[] rookBits = material == EndgameMaterial.KPK ? generate(EndgameMaterial.KRK) : null;
+            bits = new Retrograde(material, queenBits, rookBits).run();
+            this.generated.put(material, bits);
+        }
+        return bits;
+    }
+
+    public Path write(final EndgameMaterial material, final Path directory) throws IOException {
+        final long[] bits = generate(material);
+        Files.createDirectories(directory);
+        final Path file = directory.resolve(material.getFileName());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(material.getPieceCount());
+            for(final long word : bits){
+                out.writeLong(word);
+            }
+        }
+        return file;
+    }
+
+    public static int countWins(final long[] bits, final int from, final int to) {
+        int wins = 0;
+        for(int index = from; index < to; index++){
+            if(isSet(bits, index)){
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    static boolean isSet(final long[] bits, final int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private final class Retrograde {
+
+        private final EndgameMaterial material;
+        private final int pieceCount;
+        private final int placements;
+        private final byte[] states;
+        private final long[] queenBits;
+        private final long[] rookBits;
+
+        Retrograde(final EndgameMaterial material, final long[] queenBits, final long[] rookBits) {
+            this.material = material;
+            this.pieceCount = material.getPieceCount();
+            this.placements = material.getPlacementCount();
+            this.states = new byte[2 * this.placements];
+            this.queenBits = queenBits;
+            this.rookBits = rookBits;
+        }
+
+        long[] run() {
+
+            //strong side to move are promotions, weak side to move are mates
+            final IndexList starts = walk(null, this.placements, this::initialise);
+            IndexList won = new IndexList();
+            IndexList lost = new IndexList();
+            for(int i = 0; i < starts.size(); i++){
+                (starts.get(i) < this.placements ? won : lost).add(starts.get(i));
+            }
+
+            while(!won.isEmpty() || !lost.isEmpty()){
+                won.addAll(walk(lost.items, lost.size(), this::wonBefore));
+                lost = walk(won.items, won.size(), this::lostBefore);
+                won = new IndexList();
+            }
+
+            final long[] bits = new long[(int) (this.material.getPositionCount() >>> 6)];
+            for(int index = 0; index < this.states.length; index++){
+                if(this.states[index] == STRONG_WINS){
+                    bits[index >>> 6] |= 1L << index;
+                }
+            }
+            return bits;
+        }
+
+        private IndexList walk(final int[] items, final int size, final Visitor visitor) {
+            return pool.invoke(new Slice(items, 0, size, visitor));
+        }
+
+        private void initialise(final int placement, final int[] squares, final IndexList out) {
+
+            this.material.squares(placement, squares);
+            final int strongIndex = this.material.index(true, placement);
+            final int weakIndex = this.material.index(false, placement);
+            if(!isValid(squares)){
+                this.states[strongIndex] = ILLEGAL;
+                this.states[weakIndex] = ILLEGAL;
+                return;
+            }
+
+            //the weak king cannot be left in check
+            final boolean weakInCheck = BitBoards.isSet(pieceAttacks(squares, occupancy(squares), -1), squares[EndgameMaterial.WEAK_KING]);
+            if(weakInCheck){
+                this.states[strongIndex] = ILLEGAL;
+            } else if(promotesToWin(squares)){
+                this.states[strongIndex] = STRONG_WINS;
+                out.add(strongIndex);
+            }
+
+            if(weakInCheck && weakReplies(squares) == MATED){
+                this.states[weakIndex] = STRONG_WINS;
+                out.add(weakIndex);
+            }
+        }
+
+        //lost with the weak king to move, so whatever moved the strong side there wins
+        private void wonBefore(final int index, final int[] squares, final IndexList out) {
+
+            this.material.squares(index - this.placements, squares);
+            final long occupancy = occupancy(squares);
+            final int weakKing = squares[EndgameMaterial.WEAK_KING];
+
+            for(int piece = 0; piece < this.pieceCount; piece++){
+                if(piece == EndgameMaterial.WEAK_KING){
+                    continue;
+                }
+                final int to = squares[piece];
+                long origins = origins(this.material.getPieceType(piece), to, occupancy);
+                if(piece == EndgameMaterial.STRONG_KING){
+                    origins &= ~AttackTables.kingAttacks(weakKing);
+                }
+                while(origins != BitBoards.EMPTY){
+                    squares[piece] = BitBoards.firstSquare(origins);
+                    origins = BitBoards.clearFirstSquare(origins);
+                    final int previous = this.material.index(true, this.material.placement(squares));
+                    if(this.states[previous] == UNRESOLVED){
+                        this.states[previous] = STRONG_WINS;
+                        out.add(previous);
+                    }
+                }
+                squares[piece] = to;
+            }
+        }
+
+        //won with the strong side to move, the weak king positions before it may now be lost
+        private void lostBefore(final int index, final int[] squares, final IndexList out) {
+
+            this.material.squares(index, squares);
+            final int weakKing = squares[EndgameMaterial.WEAK_KING];
+            long origins = AttackTables.kingAttacks(weakKing) & ~occupancy(squares)
+                    & ~AttackTables.kingAttacks(squares[EndgameMaterial.STRONG_KING]);
+
+            while(origins != BitBoards.EMPTY){
+                squares[EndgameMaterial.WEAK_KING] = BitBoards.firstSquare(origins);
+                origins = BitBoards.clearFirstSquare(origins);
+                final int previous = this.material.index(false, this.material.placement(squares));
+                if(this.states[previous] == UNRESOLVED && weakReplies(squares) == LOST){
+                    this.states[previous] = STRONG_WINS;
+                    out.add(previous);
+                }
+            }
+        }
+
+        private int weakReplies(final int[] squares) {
+
+            final int strongKing = squares[EndgameMaterial.STRONG_KING];
+            final int weakKing = squares[EndgameMaterial.WEAK_KING];
+            final long occupancy = occupancy(squares);
+            final long withoutKing = occupancy & ~BitBoards.squareMask(weakKing);
+
+            long targets = AttackTables.kingAttacks(weakKing) & ~AttackTables.kingAttacks(strongKing);
+            boolean moved = false;
+            int result = LOST;
+            while(targets != BitBoards.EMPTY){
+                final int to = BitBoards.firstSquare(targets);
+                targets = BitBoards.clearFirstSquare(targets);
+                final int captured = pieceOn(squares, to);
+                if(BitBoards.isSet(pieceAttacks(squares, withoutKing, captured), to)){
+                    continue;
+                }
+                moved = true;
+                //every ending here is a draw once a piece goes
+                if(captured >= 0){
+                    return ESCAPES;
+                }
+                squares[EndgameMaterial.WEAK_KING] = to;
+                final boolean won = this.states[this.material.index(true, this.material.placement(squares))] == STRONG_WINS;
+                squares[EndgameMaterial.WEAK_KING] = weakKing;
+                if(!won){
+                    result = ESCAPES;
+                    break;
+                }
+            }
+
+            if(!moved){
+                return BitBoards.isSet(pieceAttacks(squares, occupancy, -1), weakKing) ? MATED : STALEMATED;
+            }
+            return result;
+        }
+
+        //promoting into a KQK or KRK the weak side loses
+        private boolean promotesToWin(final int[] squares) {
+            if(this.queenBits == null){
+                return false;
+            }
+            final int pawn = squares[2];
+            final int to = pawn - 8;
+            if(to < 0 || to >= 8 || pieceOn(squares, to) != -1
+                    || to == squares[EndgameMaterial.STRONG_KING] || to == squares[EndgameMaterial.WEAK_KING]){
+                return false;
+            }
+            final int[] promoted = {squares[EndgameMaterial.STRONG_KING], squares[EndgameMaterial.WEAK_KING], to};
+            return isSet(this.queenBits, EndgameMaterial.KQK.index(false, EndgameMaterial.KQK.placement(promoted)))
+                    || isSet(this.rookBits, EndgameMaterial.KRK.index(false, EndgameMaterial.KRK.placement(promoted)));
+        }
+
+        //pieces on their own tiles, kings apart and pawns off the first and last ranks
+        private boolean isValid(final int[] squares) {
+            long occupancy = BitBoards.EMPTY;
+            for(int piece = 0; piece < this.pieceCount; piece++){
+                final int square = squares[piece];
+                if(BitBoards.isSet(occupancy, square)){
+                    return false;
+                }
+                if(this.material.getPieceType(piece) == PieceType.PAWN && (square < 8 || square >= 56)){
+                    return false;
+                }
+                occupancy |= BitBoards.squareMask(square);
+            }
+            return !BitBoards.isSet(AttackTables.kingAttacks(squares[EndgameMaterial.STRONG_KING]), squares[EndgameMaterial.WEAK_KING]);
+        }
+
+        private long occupancy(final int[] squares) {
+            long occupancy = BitBoards.EMPTY;
+            for(int piece = 0; piece < this.pieceCount; piece++){
+                occupancy |= BitBoards.squareMask(squares[piece]);
+            }
+            return occupancy;
+        }
+
+        //what the strong pieces other than the king attack, leaving out a captured one
+        private long pieceAttacks(final int[] squares, final long occupancy, final int skipped) {
+            long attacks = BitBoards.EMPTY;
+            for(int piece = 2; piece < this.pieceCount; piece++){
+                if(piece != skipped){
+                    attacks |= MoveGenerator.attacks(this.material.getPieceType(piece), Alliance.WHITE, squares[piece], occupancy);
+                }
+            }
+            return attacks;
+        }
+
+        //the strong piece on the tile, -1 when there is none but a king
+        private int pieceOn(final int[] squares, final int square) {
+            for(int piece = 2; piece < this.pieceCount; piece++){
+                if(squares[piece] == square){
+                    return piece;
+                }
+            }
+            return -1;
+        }
+
+        //empty tiles a strong piece can have come from without capturing
+        private long origins(final PieceType pieceType, final int to, final long occupancy) {
+            if(pieceType != PieceType.PAWN){
+                return MoveGenerator.attacks(pieceType, Alliance.WHITE, to, occupancy) & ~occupancy;
+            }
+            long origins = BitBoards.EMPTY;
+            if(to + 8 < 56 && !BitBoards.isSet(occupancy, to + 8)){
+                origins |= BitBoards.squareMask(to + 8);
+                if(to >= 32 && to < 40 && !BitBoards.isSet(occupancy, to + 16)){
+                    origins |= BitBoards.squareMask(to + 16);
+                }
+            }
+            return origins;
+        }
+
+    }
+
+    private interface Visitor {
+        void visit(int item, int[] squares, IndexList out);
+    }
+
+    //a range of indices, or of a frontier when items is given
+    private static final class Slice extends RecursiveTask<IndexList> {
+
+        private final int[] items;
+        private final int from;
+        private final int to;
+        private final Visitor visitor;
+
+        Slice(final int[] items, final int from, final int to, final Visitor visitor) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected IndexList compute() {
+            if(this.to - this.from <= SLICE_SIZE){
+                final IndexList out = new IndexList();
+                final int[] squares = new int[EndgameMaterial.MAX_PIECES];
+                for(int i = this.from; i < this.to; i++){
+                    this.visitor.visit(this.items == null ? i : this.items[i], squares, out);
+                }
+                return out;
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            final Slice left = new Slice(this.items, this.from, middle, this.visitor);
+            left.fork();
+            final IndexList right = new Slice(this.items, middle, this.to, this.visitor).compute();
+            final IndexList out = left.join();
+            out.addAll(right);
+            return out;
+        }
+    }
+
+    private static final class IndexList {
+
+        private int[] items = new int[16];
+        private int size;
+
+        void add(final int item) {
+            if(this.size == this.items.length){
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+            }
+            this.items[this.size++] = item;
+        }
+
+        void addAll(final IndexList other) {
+            if(this.size + other.size > this.items.length){
+                this.items = Arrays.copyOf(this.items, Math.max(this.size + other.size, this.items.length * 2));
+            }
+            System.arraycopy(other.items, 0, this.items, this.size, other.size);
+            this.size += other.size;
+        }
+
+        int get(final int i) {
+            return this.items[i];
+        }
+
+        int size() {
+            return this.size;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+    }
+
+}
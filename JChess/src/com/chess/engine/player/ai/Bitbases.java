@@ -0,0 +1,93 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoardPosition;
+import com.chess.engine.board.BitBoards;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ *
+ * The bitbases written by BitbaseGenerator, memory mapped so probing is a bit test on the file.
+ *
+ * They are looked for in the bitbases directory when first used, another directory can be loaded
+ * instead. An ending without a file is just not known. The result is for the side to move.
+ *
+ * */
+
+public final class Bitbases {
+
+    public static final String DEFAULT_DIRECTORY = "bitbases";
+
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    private static volatile Map<EndgameMaterial, ByteBuffer> tables = open(Paths.get(DEFAULT_DIRECTORY));
+
+    private Bitbases(){
+        throw new RuntimeException("You cannot instantiate me!");
+    }
+
+    public static void load(final Path directory) {
+        tables = open(directory);
+    }
+
+    public static boolean isAvailable(final EndgameMaterial material) {
+        return tables.containsKey(material);
+    }
+
+    public static int probe(final BitBoardPosition position) {
+
+        //most positions are out after one count
+        final int pieces = BitBoards.count(position.getOccupancy());
+        if(pieces > EndgameMaterial.MAX_PIECES || pieces < 3){
+            return UNKNOWN;
+        }
+
+        final Alliance strong = BitBoards.count(position.getOccupancy(Alliance.BLACK)) == 1 ? Alliance.WHITE : Alliance.BLACK;
+        final EndgameMaterial material = EndgameMaterial.of(position, strong);
+        final ByteBuffer table = material != null ? tables.get(material) : null;
+        if(table == null){
+            return UNKNOWN;
+        }
+
+        final int index = material.index(position, strong);
+        final boolean strongWins = (table.getLong(BitbaseGenerator.HEADER_BYTES + 8 * (index >>> 6)) & (1L << index)) != 0;
+        if(!strongWins){
+            return DRAW;
+        }
+        return position.getMoveMaker() == strong ? WIN : LOSS;
+    }
+
+    private static Map<EndgameMaterial, ByteBuffer> open(final Path directory) {
+        final Map<EndgameMaterial, ByteBuffer> opened = new EnumMap<>(EndgameMaterial.class);
+        for(final EndgameMaterial material : EndgameMaterial.values()){
+            final Path file = directory.resolve(material.getFileName());
+            if(!Files.isRegularFile(file)){
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if(table.capacity() == BitbaseGenerator.HEADER_BYTES + material.getPositionCount() / 8
+                        && table.getInt(0) == BitbaseGenerator.MAGIC && table.getInt(4) == material.getPieceCount()){
+                    opened.put(material, table);
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return Collections.unmodifiableMap(opened);
+    }
+
+}
@@ -1,9 +1,15 @@
 package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
+import com.chess.engine.board.SearchBoard;
 
 public interface BoardEvaluator {
 
+    //the score of a position drawn by the rules, level whatever is on the board
+    int DRAW_SCORE = 0;
+
     int evaluate(Board board, int depth);
 
+    int evaluate(SearchBoard board, int depth);
+
 }
@@ -0,0 +1,113 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoardPosition;
+import com.chess.engine.board.BitBoards;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/**
+ *
+ * The lone king endings that have a bitbase, named after the pieces the strong side keeps.
+ *
+ * A position of one of them is indexed by the side to move and the tiles of the strong king, the
+ * weak king and then the strong pieces in the order given here, six bits each. The strong side is
+ * always stored as white, a black strong side is flipped top to bottom so its pawns run the same way.
+ *
+ * */
+
+public enum EndgameMaterial {
+
+    KPK(PieceType.PAWN),
+    KRK(PieceType.ROOK),
+    KQK(PieceType.QUEEN),
+    KBNK(PieceType.BISHOP, PieceType.KNIGHT);
+
+    public static final int STRONG_KING = 0;
+    public static final int WEAK_KING = 1;
+    public static final int MAX_PIECES = 4;
+
+    private static final int FLIP_RANKS = 56;
+
+    private final PieceType[] strongPieces;
+
+    EndgameMaterial(final PieceType... strongPieces){
+        this.strongPieces = strongPieces;
+    }
+
+    public int getPieceCount(){
+        return 2 + this.strongPieces.length;
+    }
+
+    //the type of the piece stored at that place of the index, kings included
+    public PieceType getPieceType(final int piece){
+        return piece < 2 ? PieceType.KING : this.strongPieces[piece - 2];
+    }
+
+    //placements of the pieces for one side to move
+    public int getPlacementCount(){
+        return 1 << (6 * getPieceCount());
+    }
+
+    //both sides to move
+    public long getPositionCount(){
+        return 2L * getPlacementCount();
+    }
+
+    public String getFileName(){
+        return name().toLowerCase() + ".bitbase";
+    }
+
+    public int placement(final int[] squares){
+        int placement = 0;
+        for(int i = 0; i < getPieceCount(); i++){
+            placement = (placement << 6) | squares[i];
+        }
+        return placement;
+    }
+
+    public void squares(final int placement, final int[] squares){
+        for(int i = getPieceCount() - 1, rest = placement; i >= 0; i--, rest >>>= 6){
+            squares[i] = rest & 63;
+        }
+    }
+
+    //strong side to move is the first half of the index, weak side to move the second
+    public int index(final boolean strongToMove, final int placement){
+        return strongToMove ? placement : getPlacementCount() + placement;
+    }
+
+    public int index(final BitBoardPosition position, final Alliance strong){
+        final Alliance weak = strong.getOpponent();
+        final int flip = strong.isWhite() ? 0 : FLIP_RANKS;
+        int placement = BitBoards.firstSquare(position.getPieceBitBoard(strong, PieceType.KING)) ^ flip;
+        placement = (placement << 6) | (BitBoards.firstSquare(position.getPieceBitBoard(weak, PieceType.KING)) ^ flip);
+        for(final PieceType pieceType : this.strongPieces){
+            placement = (placement << 6) | (BitBoards.firstSquare(position.getPieceBitBoard(strong, pieceType)) ^ flip);
+        }
+        return index(position.getMoveMaker() == strong, placement);
+    }
+
+    //the ending on the board for that strong side, null when it is none of them
+    public static EndgameMaterial of(final BitBoardPosition position, final Alliance strong){
+        if(BitBoards.count(position.getOccupancy(strong.getOpponent())) != 1){
+            return null;
+        }
+        final int strongCount = BitBoards.count(position.getOccupancy(strong));
+        for(final EndgameMaterial material : values()){
+            if(material.getPieceCount() - 1 == strongCount && material.hasPieces(position, strong)){
+                return material;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasPieces(final BitBoardPosition position, final Alliance strong){
+        for(final PieceType pieceType : this.strongPieces){
+            if(position.getPieceBitBoard(strong, pieceType) == BitBoards.EMPTY){
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *
+ * Lazy SMP: every thread runs its own iterative deepening principal variation search on the same
+ * root, and the only thing they share is the lock-free transposition table.
+ *
+ * Nothing is split and nobody waits on anybody. The helpers fill the table with results the main
+ * search then finds already done, and half of them search one ply ahead so the threads do not all
+ * walk the same tree in step. The move played is the main search's, the one running on the
+ * calling thread; when it finishes the helpers are told to stop.
+ *
+ * The helper threads and their searchers, with their killers and history, live as long as this
+ * object and are reused from move to move. Call shutdown() when the game is over.
+ *
+ * */
+
+public final class LazySMP implements MoveStrategy {
+
+    private final int searchDepth;
+    private final int threadCount;
+    private final TranspositionTable transpositionTable;
+    private final PrincipalVariationSearch mainSearch;
+    private final List<PrincipalVariationSearch> helperSearches;
+    private final ExecutorService helperPool;
+
+    public LazySMP(final int searchDepth, final int threadCount) {
+        this(searchDepth, threadCount, new TranspositionTable(), SearchParameters.SELECTIVE);
+    }
+
+    public LazySMP(final int searchDepth,
+                   final int threadCount,
+                   final TranspositionTable transpositionTable) {
+        this(searchDepth, threadCount, transpositionTable, SearchParameters.SELECTIVE);
+    }
+
+    public LazySMP(final int searchDepth,
+                   final int threadCount,
+                   final TranspositionTable transpositionTable,
+                   final SearchParameters searchParameters) {
+        this.searchDepth = searchDepth;
+        this.threadCount = Math.max(1, threadCount);
+        this.transpositionTable = transpositionTable;
+        this.mainSearch = new PrincipalVariationSearch(searchDepth, transpositionTable, searchParameters);
+        this.helperSearches = new ArrayList<>();
+        for (int i = 1; i < this.threadCount; i++) {
+            this.helperSearches.add(new PrincipalVariationSearch(searchDepth, transpositionTable, searchParameters));
+        }
+        //daemon threads, an idle pool must not keep the application alive
+        this.helperPool = this.helperSearches.isEmpty() ? null : Executors.newFixedThreadPool(this.helperSearches.size(), runnable -> {
+            final Thread thread = new Thread(runnable, "LazySMP helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMP";
+    }
+
+    @Override
+    public Move execute(Board board) {
+        return execute(board, TimeControl.fixedDepth(this.searchDepth));
+    }
+
+    @Override
+    public Move execute(final Board board, final TimeControl timeControl) {
+
+        final long startTime = System.nanoTime();
+        final AtomicBoolean stopSignal = new AtomicBoolean();
+
+        final List<Future<Move>> helpers = new ArrayList<>();
+        for (int i = 0; i < this.helperSearches.size(); i++) {
+            final PrincipalVariationSearch helperSearch = this.helperSearches.get(i);
+            //helper 0 is the second thread, so odd threads search a ply ahead
+            final int depthOffset = i % 2 == 0 ? 1 : 0;
+            helpers.add(this.helperPool.submit(() -> helperSearch.search(board, timeControl, depthOffset, stopSignal, false)));
+        }
+
+        final Move bestMove = this.mainSearch.search(board, timeControl, 0, stopSignal, true);
+
+        //the helpers only ever helped, whatever they are still doing is thrown away
+        stopSignal.set(true);
+        long nodes = this.mainSearch.getNodes();
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                helpers.get(i).get();
+                nodes += this.helperSearches.get(i).getNodes();
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println(e);
+            }
+        }
+
+        final long elapsed = System.nanoTime() - startTime;
+        System.out.println(this.threadCount + " threads, " + nodes + " nodes, " +
+                TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+
+        //return the best move
+        return bestMove;
+    }
+
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    public void shutdown() {
+        if (this.helperPool != null) {
+            this.helperPool.shutdownNow();
+        }
+    }
+
+}
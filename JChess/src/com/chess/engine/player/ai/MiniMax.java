@@ -2,7 +2,9 @@ package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
-import com.chess.engine.player.MoveTransition;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
 
 
 /**
@@ -11,16 +13,25 @@ import com.chess.engine.player.MoveTransition;
  *
  * Execute is called
  *
+ * Every value minimax works out is exact, so a transposition table entry that was searched
+ * at least as deep ends the node at once
+ *
  * */
 
 public class MiniMax implements MoveStrategy {
 
     private final BoardEvaluator boardEvaluator;
     private final int searchDepth;
+    private final TranspositionTable transpositionTable;
 
     public MiniMax(final int searchDepth) {
+        this(searchDepth, new TranspositionTable());
+    }
+
+    public MiniMax(final int searchDepth, final TranspositionTable transpositionTable) {
         this.boardEvaluator = new StandardBoardEvaluator();
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
     }
 
     @Override
@@ -43,31 +54,31 @@ public class MiniMax implements MoveStrategy {
 
         System.out.println(board.currentPlayer() + " Thinking with depth = " + this.searchDepth);
 
+        //the tree is walked on one mutable board, moves are made and unmade in place
+        final SearchBoard searchBoard = new SearchBoard(board);
+
         //loop all moves
         for (final Move move : board.currentPlayer().getLegalMoves()) {
 
-            //for all moves, make that move and get the transition board
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            //make the move, every root move is already legal
+            searchBoard.makeMove(move.toPackedMove());
 
-            //if the moveTransition confirms the board is a valid move
-            if (moveTransition.getMoveStatus().isDone()) {
+            //then call minimax on that move.
+            currentValue = board.currentPlayer().getAlliance().isWhite()
+                    ? min(searchBoard, this.searchDepth - 1)
+                    : max(searchBoard, this.searchDepth - 1);
 
-                //then call minimax on that move.
-                currentValue = board.currentPlayer().getAlliance().isWhite()
-                        ? min(moveTransition.getTransitionBoard(), this.searchDepth - 1)
-                        : max(moveTransition.getTransitionBoard(), this.searchDepth - 1);
+            searchBoard.unmakeMove();
 
-                //minimax will traverse all the possible moves and record the best scores
-                if (board.currentPlayer().getAlliance().isWhite() && currentValue >= highestSeenValue) {
-                    highestSeenValue = currentValue;
-                    bestMove = move;
-                }
-
-                if (board.currentPlayer().getAlliance().isBlack() && currentValue <= lowestSeenValue) {
-                    lowestSeenValue = currentValue;
-                    bestMove = move;
-                }
+            //minimax will traverse all the possible moves and record the best scores
+            if (board.currentPlayer().getAlliance().isWhite() && currentValue >= highestSeenValue) {
+                highestSeenValue = currentValue;
+                bestMove = move;
+            }
 
+            if (board.currentPlayer().getAlliance().isBlack() && currentValue <= lowestSeenValue) {
+                lowestSeenValue = currentValue;
+                bestMove = move;
             }
         }
 
@@ -86,60 +97,95 @@ public class MiniMax implements MoveStrategy {
     }
 
 
-    public int min(final Board board, final int depth) {
+    public int min(final SearchBoard board, final int depth) {
+
+        //a repetition or fifty quiet moves end the game here, however much is still on the board
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
 
-        if (depth == 0 || isEndGameScenario(board)) {
+        if (depth == 0) {
             return this.boardEvaluator.evaluate(board, depth);
         }
 
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        //a shared table also holds the bounds of the alpha beta searches, only an exact score is a minimax value
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth
+                && TranspositionTable.getBound(entry) == TranspositionTable.EXACT) {
+            return TranspositionTable.getScore(entry);
+        }
+
         int lowestSeenValue = Integer.MAX_VALUE;
+        int bestMove = PackedMove.NULL_MOVE;
 
         //traverse minimax tree until depth is reached.
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = max(moveTransition.getTransitionBoard(), depth - 1);
-                if (currentValue <= lowestSeenValue) {
-                    lowestSeenValue = currentValue;
-                }
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int currentValue = max(board, depth - 1);
+            board.unmakeMove();
+            if (currentValue <= lowestSeenValue) {
+                lowestSeenValue = currentValue;
+                bestMove = moves.get(i);
             }
         }
 
+        this.transpositionTable.store(zobristKey, bestMove, lowestSeenValue, depth, TranspositionTable.EXACT);
+
         //if min will return lowest
         return lowestSeenValue;
     }
 
 
-    public int max(final Board board, final int depth) {
+    public int max(final SearchBoard board, final int depth) {
 
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
 
-        if (depth == 0 || isEndGameScenario(board)) {
+        if (depth == 0) {
             return this.boardEvaluator.evaluate(board, depth);
         }
 
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth
+                && TranspositionTable.getBound(entry) == TranspositionTable.EXACT) {
+            return TranspositionTable.getScore(entry);
+        }
+
         int highestSeenValue = Integer.MIN_VALUE;
+        int bestMove = PackedMove.NULL_MOVE;
 
         //traverse minimax tree until depth is reached.
-        for (final Move move : board.currentPlayer().getLegalMoves()) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                final int currentValue = min(moveTransition.getTransitionBoard(), depth - 1);
-                if (currentValue >= highestSeenValue) {
-                    highestSeenValue = currentValue;
-                }
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            final int currentValue = min(board, depth - 1);
+            board.unmakeMove();
+            if (currentValue >= highestSeenValue) {
+                highestSeenValue = currentValue;
+                bestMove = moves.get(i);
             }
         }
 
+        this.transpositionTable.store(zobristKey, bestMove, highestSeenValue, depth, TranspositionTable.EXACT);
+
         //max will return highest
         return highestSeenValue;
     }
 
-
-    //TODO check if this is correct board evaluation to return.
-    private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
-    }
-
-
-
 }
@@ -0,0 +1,170 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.board.StaticExchange;
+import com.chess.engine.pieces.Piece.PieceType;
+
+/**
+ *
+ * Sorts the moves of a node so the ones most likely to cause a cutoff are searched first:
+ *
+ *   1. the transposition table move
+ *   2. captures and promotions, most valuable victim first, then least valuable attacker
+ *   3. the two killer moves of this ply, quiet moves that cut off at a sibling node
+ *   4. captures that lose material once the exchange is played out (StaticExchange)
+ *   5. the other quiet moves, by how often they have cut off anywhere in the tree (history)
+ *
+ * The scores of a ply are kept until that ply is ordered again, so a search can ask whether a move
+ * it is about to play was ordered as a losing capture instead of playing out the exchange twice.
+ *
+ * Killers and history are learnt during a search and are not thread safe, so every search
+ * thread keeps its own orderer.
+ *
+ * */
+
+public final class MoveOrderer {
+
+    private static final int KILLERS_PER_PLY = 2;
+
+    private static final int TRANSPOSITION_SCORE = Integer.MAX_VALUE;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+
+    //history scores are halved once they get here, so they never reach the killers
+    private static final int HISTORY_LIMIT = 1 << 26;
+
+    //above any history score, with room below for the capture score of the worst loss
+    private static final int LOSING_CAPTURE_SCORE = HISTORY_LIMIT + (1 << 16);
+
+    private final int[][] killers;
+    private final int[][][] history;
+    //per ply, made the first time a ply is ordered
+    private final int[][] scores;
+
+    public MoveOrderer() {
+        this.killers = new int[SearchBoard.MAX_PLY][KILLERS_PER_PLY];
+        this.history = new int[Alliance.values().length][BoardUtils.NUM_TILES][BoardUtils.NUM_TILES];
+        this.scores = new int[SearchBoard.MAX_PLY + 1][];
+    }
+
+    public void orderMoves(final SearchBoard board, final MoveList moves, final int transpositionMove) {
+
+        final int ply = board.getPly();
+        final int[][] historyScores = this.history[board.getMoveMaker().ordinal()];
+        if (this.scores[ply] == null) {
+            this.scores[ply] = new int[MoveList.MAX_MOVES];
+        }
+        final int[] scores = this.scores[ply];
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            if (move == transpositionMove) {
+                scores[i] = TRANSPOSITION_SCORE;
+            } else if (isTactical(move)) {
+                scores[i] = (StaticExchange.isLosing(board, move) ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + captureScore(move);
+            } else if (move == this.killers[ply][0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == this.killers[ply][1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = historyScores[PackedMove.getCurrentCoordinate(move)][PackedMove.getDestinationCoordinate(move)];
+            }
+        }
+
+        //insertion sort, highest score first, the lists are short and often nearly sorted
+        for (int i = 1; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
+    //whether the move at index in the list this ply last ordered was put in the losing capture band,
+    //the transposition move is never put in a band so it does not count
+    boolean isLosingCapture(final SearchBoard board, final int index) {
+        final int score = this.scores[board.getPly()][index];
+        return score > HISTORY_LIMIT && score < KILLER_SCORE;
+    }
+
+    //a quiet move that caused a beta cutoff becomes a killer of its ply and earns history
+    public void recordCutoff(final SearchBoard board, final int move, final int depth) {
+
+        if (isTactical(move)) {
+            return;
+        }
+
+        final int[] plyKillers = this.killers[board.getPly()];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        final int[][] historyScores = this.history[board.getMoveMaker().ordinal()];
+        final int from = PackedMove.getCurrentCoordinate(move);
+        final int to = PackedMove.getDestinationCoordinate(move);
+        historyScores[from][to] += depth * depth;
+        if (historyScores[from][to] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    //called between searches: killers belong to the old root, history is only made less sure of itself
+    public void newSearch() {
+        for (final int[] plyKillers : this.killers) {
+            plyKillers[0] = PackedMove.NULL_MOVE;
+            plyKillers[1] = PackedMove.NULL_MOVE;
+        }
+        ageHistory();
+    }
+
+    //most valuable victim, then least valuable attacker; a promotion counts as winning the new piece
+    static int captureScore(final int move) {
+        int victimValue = 0;
+        if (PackedMove.isAttack(move)) {
+            victimValue = PackedMove.pieceType(PackedMove.getCapturedPiece(move)).getPieceValue();
+        }
+        if (PackedMove.isPromotion(move)) {
+            victimValue += PackedMove.pieceType(PackedMove.getPromotionPiece(move)).getPieceValue();
+        }
+        return victimValue * 10 - PackedMove.pieceType(PackedMove.getMovedPiece(move)).getPieceValue();
+    }
+
+    //the moves a quiescence search keeps looking at
+    static boolean isTactical(final int move) {
+        return PackedMove.isAttack(move) || PackedMove.isPromotion(move);
+    }
+
+    //the most material a move can win, the captured piece plus what a promotion adds to the pawn
+    static int materialGain(final int move) {
+        int gain = 0;
+        if (PackedMove.isAttack(move)) {
+            gain += PackedMove.pieceType(PackedMove.getCapturedPiece(move)).getPieceValue();
+        }
+        if (PackedMove.isPromotion(move)) {
+            gain += PackedMove.pieceType(PackedMove.getPromotionPiece(move)).getPieceValue() - PieceType.PAWN.getPieceValue();
+        }
+        return gain;
+    }
+
+    private void ageHistory() {
+        for (final int[][] sideHistory : this.history) {
+            for (final int[] fromHistory : sideHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] /= 2;
+                }
+            }
+        }
+    }
+
+}
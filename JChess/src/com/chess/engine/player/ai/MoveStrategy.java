@@ -9,5 +9,10 @@ public interface MoveStrategy {
 
     Move execute(Board board);
 
+    //searchers that deepen iteratively stop on the clock, the rest ignore it and search to their own depth
+    default Move execute(Board board, TimeControl timeControl) {
+        return execute(board);
+    }
+
 
 }
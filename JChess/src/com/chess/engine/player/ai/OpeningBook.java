@@ -0,0 +1,178 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.MoveTransition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * An opening book written by OpeningBookBuilder, memory mapped and binary searched on the Zobrist key.
+ *
+ * Every entry is a position key, the packed move played there, its weight and how the games went
+ * for the side that played it. Entries are sorted by key, the moves of one position by weight.
+ * A book move is picked at random in proportion to its weight, so the engine does not always play
+ * the same opening. Without a book file the book is empty and every lookup misses.
+ *
+ * */
+
+public final class OpeningBook {
+
+    public static final String DEFAULT_FILE = "book.bin";
+
+    public static final int MAGIC = 0x4A43424B;
+    public static final int HEADER_BYTES = 8;
+    public static final int ENTRY_BYTES = 28;
+
+    private static final OpeningBook EMPTY = new OpeningBook(null, 0);
+
+    private final ByteBuffer entries;
+    private final int entryCount;
+    private final Random random;
+
+    private OpeningBook(final ByteBuffer entries, final int entryCount) {
+        this.entries = entries;
+        this.entryCount = entryCount;
+        this.random = new Random();
+    }
+
+    public static OpeningBook open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(entries.capacity() < HEADER_BYTES || entries.getInt(0) != MAGIC
+                    || entries.capacity() != HEADER_BYTES + (long) entries.getInt(4) * ENTRY_BYTES){
+                throw new IOException("Not an opening book: " + file);
+            }
+            return new OpeningBook(entries, entries.getInt(4));
+        }
+    }
+
+    //the book next to the game, or an empty one when there is none
+    public static OpeningBook openDefault() {
+        final Path file = Paths.get(DEFAULT_FILE);
+        if(Files.isRegularFile(file)){
+            try {
+                return open(file);
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return EMPTY;
+    }
+
+    public int size() {
+        return this.entryCount;
+    }
+
+    public List<Entry> getEntries(final long zobristKey) {
+        final List<Entry> found = new ArrayList<>();
+        for(int i = firstEntry(zobristKey); i < this.entryCount && key(i) == zobristKey; i++){
+            final int offset = HEADER_BYTES + i * ENTRY_BYTES;
+            found.add(new Entry(this.entries.getInt(offset + 8), this.entries.getInt(offset + 12),
+                    this.entries.getInt(offset + 16), this.entries.getInt(offset + 20), this.entries.getInt(offset + 24)));
+        }
+        return found;
+    }
+
+    //a legal move from the book, null when the position is not in it
+    public Move getBookMove(final Board board) {
+
+        final List<Entry> entries = getEntries(board.getZobristKey());
+        long totalWeight = 0;
+        for(final Entry entry : entries){
+            totalWeight += entry.getWeight();
+        }
+        if(totalWeight == 0){
+            return null;
+        }
+
+        long pick;
+        synchronized (this.random) {
+            pick = (long) (this.random.nextDouble() * totalWeight);
+        }
+        for(final Entry entry : entries){
+            pick -= entry.getWeight();
+            if(pick < 0){
+                return findMove(board, entry.getMove());
+            }
+        }
+        return null;
+    }
+
+    //the key may have collided, so the move is only trusted once it is legal here
+    private static Move findMove(final Board board, final int packedMove) {
+        final Move move = Move.MoveFactory.createMove(board, packedMove);
+        if(move == Move.NULL_MOVE){
+            return null;
+        }
+        final MoveTransition transition = board.currentPlayer().makeMove(move);
+        return transition.getMoveStatus().isDone() ? move : null;
+    }
+
+    //lowest index whose key is not below the one searched for
+    private int firstEntry(final long zobristKey) {
+        int low = 0;
+        int high = this.entryCount;
+        while(low < high){
+            final int middle = (low + high) >>> 1;
+            if(key(middle) < zobristKey){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(final int entry) {
+        return this.entries.getLong(HEADER_BYTES + entry * ENTRY_BYTES);
+    }
+
+    public static final class Entry {
+
+        private final int move;
+        private final int weight;
+        private final int wins;
+        private final int draws;
+        private final int losses;
+
+        public Entry(final int move, final int weight, final int wins, final int draws, final int losses) {
+            this.move = move;
+            this.weight = weight;
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+        }
+
+        public int getMove() {
+            return this.move;
+        }
+
+        public int getWeight() {
+            return this.weight;
+        }
+
+        public int getWins() {
+            return this.wins;
+        }
+
+        public int getDraws() {
+            return this.draws;
+        }
+
+        public int getLosses() {
+            return this.losses;
+        }
+    }
+
+}
@@ -0,0 +1,642 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.BitBoards;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.pieces.Piece;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *
+ * Principal variation search, an alpha beta that trusts its move ordering.
+ *
+ * The first move of a node is searched with the full window. Every later move is only asked
+ * "is this better than what we have?" with a null window, which is far cheaper, and is searched
+ * again with the full window only when the answer is yes.
+ *
+ * At the root each iteration starts from an aspiration window around the score of the previous
+ * one. A score outside the window means the guess was wrong, the window is widened on that side
+ * and the iteration searched again.
+ *
+ * Like AlphaBeta it deepens iteratively under a TimeControl and shares its transposition table,
+ * move ordering and quiescence search design.
+ *
+ * SearchParameters can make it selective, with null move pruning, late move reductions,
+ * futility pruning and razoring. By default it searches full width.
+ *
+ * */
+
+public class PrincipalVariationSearch implements MoveStrategy {
+
+    private static final int CLOCK_CHECK_NODES = 1024;
+
+    //iterations shallower than this are cheap enough to search with the full window
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = Piece.PieceType.PAWN.getPieceValue() / 2;
+    //after this many misses the window is opened all the way
+    private static final int ASPIRATION_MAX_RETRIES = 3;
+
+    private static final Piece.PieceType[] NON_PAWN_PIECE_TYPES = {
+            Piece.PieceType.KNIGHT, Piece.PieceType.BISHOP, Piece.PieceType.ROOK, Piece.PieceType.QUEEN
+    };
+
+    private final BoardEvaluator boardEvaluator;
+    private final int searchDepth;
+    private final TranspositionTable transpositionTable;
+    private final MoveOrderer moveOrderer;
+    private final SearchParameters searchParameters;
+    private final QuiescenceSearch quiescence;
+
+    private long deadline;
+    private AtomicBoolean stopSignal;
+    private boolean stopped;
+    private long nodes;
+    private long nullMoveCutoffs;
+    private long lateMoveReductions;
+    private long lateMoveReSearches;
+    private long futilityPrunes;
+    private long razorCutoffs;
+
+    //the score of the last root search, alongside the move it returns
+    private int rootScore;
+
+    public PrincipalVariationSearch(final int searchDepth) {
+        this(searchDepth, new TranspositionTable());
+    }
+
+    public PrincipalVariationSearch(final int searchDepth, final TranspositionTable transpositionTable) {
+        this(searchDepth, transpositionTable, SearchParameters.FULL_WIDTH);
+    }
+
+    public PrincipalVariationSearch(final int searchDepth,
+                                    final TranspositionTable transpositionTable,
+                                    final SearchParameters searchParameters) {
+        this.boardEvaluator = new StandardBoardEvaluator();
+        this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.moveOrderer = new MoveOrderer();
+        this.searchParameters = searchParameters;
+        this.quiescence = new QuiescenceSearch(this.boardEvaluator, this.moveOrderer, searchParameters,
+                new QuiescenceSearch.Cancellation() {
+                    @Override
+                    public boolean isOutOfTime() {
+                        return PrincipalVariationSearch.this.isOutOfTime();
+                    }
+
+                    @Override
+                    public boolean isStopped() {
+                        return PrincipalVariationSearch.this.stopped;
+                    }
+                });
+    }
+
+    @Override
+    public String toString() {
+        return "PVS";
+    }
+
+    @Override
+    public Move execute(Board board) {
+        return execute(board, TimeControl.fixedDepth(this.searchDepth));
+    }
+
+    @Override
+    public Move execute(final Board board, final TimeControl timeControl) {
+        return search(board, timeControl, 0, new AtomicBoolean(), true);
+    }
+
+    /**
+     * The iterative deepening loop. LazySMP runs one of these per thread over a shared table: helpers
+     * search depthOffset plies deeper than the iteration they are on so the threads spread over
+     * different depths, and all of them unwind once stopSignal is set.
+     */
+    Move search(final Board board,
+                final TimeControl timeControl,
+                final int depthOffset,
+                final AtomicBoolean stopSignal,
+                final boolean verbose) {
+
+        if (verbose) {
+            System.out.println(board.currentPlayer() + " Thinking with " + timeControl);
+        }
+
+        final long startTime = System.nanoTime();
+        this.stopSignal = stopSignal;
+        this.moveOrderer.newSearch();
+        this.nodes = 0;
+        this.nullMoveCutoffs = 0;
+        this.lateMoveReductions = 0;
+        this.lateMoveReSearches = 0;
+        this.futilityPrunes = 0;
+        this.razorCutoffs = 0;
+        this.quiescence.resetCounters();
+
+        //the tree is walked on one mutable board, moves are made and unmade in place
+        final SearchBoard searchBoard = new SearchBoard(board);
+
+        //Holder best move, from the last iteration that finished.
+        Move bestMove = null;
+        int previousScore = 0;
+
+        for (int depth = 1; depth <= timeControl.getMaxDepth(); depth++) {
+
+            //the first iteration always finishes, so there is a move to play however short the budget
+            this.deadline = depth == 1 ? Long.MAX_VALUE : timeControl.getDeadline(startTime);
+            this.stopped = false;
+
+            final int iterationDepth = Math.min(depth + depthOffset, timeControl.getMaxDepth());
+            final Move iterationMove = iterationDepth < ASPIRATION_MIN_DEPTH ?
+                    searchRoot(board, searchBoard, iterationDepth, Integer.MIN_VALUE, Integer.MAX_VALUE) :
+                    aspirationSearch(board, searchBoard, iterationDepth, previousScore);
+            if (this.stopped) {
+                break;
+            }
+
+            bestMove = iterationMove;
+            previousScore = this.rootScore;
+            if (verbose) {
+                System.out.println("depth " + iterationDepth + " " + bestMove + " score " + previousScore +
+                        " nodes " + this.nodes +
+                        " null move cutoffs " + this.nullMoveCutoffs +
+                        " reductions " + this.lateMoveReductions + " (" + this.lateMoveReSearches + " searched again)" +
+                        " futility " + this.futilityPrunes +
+                        " razored " + this.razorCutoffs +
+                        " delta " + this.quiescence.getDeltaPrunes() +
+                        " losing captures " + this.quiescence.getLosingCapturePrunes() + " " +
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+            }
+
+            if (iterationDepth >= timeControl.getMaxDepth() || !timeControl.hasTimeForNextIteration(startTime)) {
+                break;
+            }
+        }
+
+        //return the best move
+        return bestMove;
+    }
+
+    private Move aspirationSearch(final Board board,
+                                  final SearchBoard searchBoard,
+                                  final int depth,
+                                  final int previousScore) {
+
+        int lowDelta = ASPIRATION_WINDOW;
+        int highDelta = ASPIRATION_WINDOW;
+
+        for (int tries = 0; ; tries++) {
+
+            final boolean fullWindow = tries >= ASPIRATION_MAX_RETRIES;
+            final int highest = fullWindow ? Integer.MIN_VALUE : previousScore - lowDelta;
+            final int lowest = fullWindow ? Integer.MAX_VALUE : previousScore + highDelta;
+
+            final Move move = searchRoot(board, searchBoard, depth, highest, lowest);
+            if (this.stopped || fullWindow) {
+                return move;
+            }
+
+            //the true score is outside the window, widen the side it fell out of and look again
+            if (this.rootScore <= highest) {
+                lowDelta *= 4;
+            } else if (this.rootScore >= lowest) {
+                highDelta *= 4;
+            } else {
+                return move;
+            }
+        }
+    }
+
+    private Move searchRoot(final Board board,
+                            final SearchBoard searchBoard,
+                            final int depth,
+                            final int highest,
+                            final int lowest) {
+
+        //Holder best move.
+        Move bestMove = null;
+
+        //keep track of alpha and beta, the root window narrows from both sides as moves come in
+        int currentHighest = highest;
+        int currentLowest = lowest;
+
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
+        boolean firstMove = true;
+
+        //loop all moves, the best one from an earlier search first
+        for (final Move move : this.transpositionTable.orderRootMoves(searchBoard.getZobristKey(), board.currentPlayer().getLegalMoves())) {
+
+            //make the move, every root move is already legal
+            searchBoard.makeMove(move.toPackedMove());
+
+            int currentValue;
+            if (isWhite) {
+                currentValue = firstMove ?
+                        min(searchBoard, depth - 1, currentHighest, currentLowest, true) :
+                        min(searchBoard, depth - 1, currentHighest, currentHighest + 1, true);
+                if (!firstMove && currentValue > currentHighest && currentValue < currentLowest) {
+                    currentValue = min(searchBoard, depth - 1, currentHighest, currentLowest, true);
+                }
+            } else {
+                currentValue = firstMove ?
+                        max(searchBoard, depth - 1, currentHighest, currentLowest, true) :
+                        max(searchBoard, depth - 1, currentLowest - 1, currentLowest, true);
+                if (!firstMove && currentValue < currentLowest && currentValue > currentHighest) {
+                    currentValue = max(searchBoard, depth - 1, currentHighest, currentLowest, true);
+                }
+            }
+
+            searchBoard.unmakeMove();
+            firstMove = false;
+
+            if (this.stopped) {
+                return null;
+            }
+
+            if (isWhite && currentValue > currentHighest) {
+                currentHighest = currentValue;
+                bestMove = move;
+            }
+
+            if (!isWhite && currentValue < currentLowest) {
+                currentLowest = currentValue;
+                bestMove = move;
+            }
+
+            //outside the aspiration window, the caller searches again with a wider one
+            if (currentHighest >= currentLowest) {
+                break;
+            }
+        }
+
+        this.rootScore = isWhite ? currentHighest : currentLowest;
+
+        //a score inside the window is exact
+        if (bestMove != null && this.rootScore > highest && this.rootScore < lowest) {
+            this.transpositionTable.store(searchBoard.getZobristKey(), bestMove.toPackedMove(),
+                    this.rootScore, depth, TranspositionTable.EXACT);
+        }
+
+        return bestMove;
+    }
+
+    //looks at the clock every CLOCK_CHECK_NODES nodes, once out of time every node unwinds at once
+    private boolean isOutOfTime() {
+        if (!this.stopped && (++this.nodes & (CLOCK_CHECK_NODES - 1)) == 0
+                && (this.stopSignal.get() || System.nanoTime() >= this.deadline)) {
+            this.stopped = true;
+        }
+        return this.stopped;
+    }
+
+    long getNodes() {
+        return this.nodes;
+    }
+
+    //only at null window nodes deep enough, never in check and never without a piece to move
+    private boolean isNullMoveCandidate(final SearchBoard board,
+                                        final int depth,
+                                        final int highest,
+                                        final int lowest) {
+        return this.searchParameters.isNullMoveEnabled()
+                && depth >= this.searchParameters.getNullMoveMinDepth()
+                && (long) lowest - highest == 1
+                && !board.isInCheck()
+                && pieceMaterial(board) > 0;
+    }
+
+    //a frontier node, one ply from the horizon, where no quiet move can win back a big deficit
+    private boolean isFutilityCandidate(final int depth,
+                                        final int highest,
+                                        final int lowest,
+                                        final boolean inCheck) {
+        return this.searchParameters.isFutilityPruningEnabled()
+                && depth == 1
+                && (long) lowest - highest == 1
+                && !inCheck;
+    }
+
+    //a pre-frontier node, two plies from the horizon
+    private boolean isRazoringCandidate(final SearchBoard board,
+                                        final int depth,
+                                        final int highest,
+                                        final int lowest) {
+        return this.searchParameters.isRazoringEnabled()
+                && depth == 2
+                && (long) lowest - highest == 1
+                && !board.isInCheck();
+    }
+
+    private boolean needsVerification(final SearchBoard board) {
+        return pieceMaterial(board) <= this.searchParameters.getNullMoveVerificationMaterial();
+    }
+
+    //what the side to move has in pieces other than pawns and king
+    private static int pieceMaterial(final SearchBoard board) {
+        int material = 0;
+        for (final Piece.PieceType pieceType : NON_PAWN_PIECE_TYPES) {
+            material += BitBoards.count(board.getPieceBitBoard(board.getMoveMaker(), pieceType)) * pieceType.getPieceValue();
+        }
+        return material;
+    }
+
+    //called with the move already made, so a check is the opponent's
+    private int lateMoveReduction(final SearchBoard board,
+                                  final int depth,
+                                  final int moveIndex,
+                                  final int move,
+                                  final boolean inCheck) {
+
+        if (!this.searchParameters.isLateMoveReductionEnabled()
+                || inCheck
+                || depth < this.searchParameters.getLateMoveMinDepth()
+                || moveIndex < this.searchParameters.getLateMoveIndex()
+                || MoveOrderer.isTactical(move)
+                || board.isInCheck()) {
+            return 0;
+        }
+
+        //a reduced move still gets at least one full ply
+        final int reduction = Math.max(0, Math.min(this.searchParameters.getLateMoveReduction(), depth - 2));
+        if (reduction > 0) {
+            this.lateMoveReductions++;
+        }
+        return reduction;
+    }
+
+    private int max(final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final boolean nullMoveAllowed) {
+
+        //a repetition or fifty quiet moves end the game here, however much is still on the board
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        //the horizon is left to the quiescence search, so it never lands in the middle of an exchange
+        if (depth == 0) {
+            return this.quiescence.max(board, highest, lowest);
+        }
+
+        if (isOutOfTime()) {
+            return 0;
+        }
+
+        //a result from a deep enough search of this position may settle it straight away
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
+        }
+
+        //null move pruning, if even passing fails high a real move will too
+        if (nullMoveAllowed && isNullMoveCandidate(board, depth, highest, lowest)) {
+            final int reduction = this.searchParameters.getNullMoveReduction();
+            board.makeNullMove();
+            final int value = min(board, Math.max(0, depth - 1 - reduction), lowest - 1, lowest, false);
+            board.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (value >= lowest) {
+                //in zugzwang passing is the best move there is, so with few pieces a real reduced search has to agree
+                final boolean confirmed = !needsVerification(board) ||
+                        max(board, depth - reduction, highest, lowest, false) >= lowest;
+                if (this.stopped) {
+                    return 0;
+                }
+                if (confirmed) {
+                    this.nullMoveCutoffs++;
+                    return lowest;
+                }
+            }
+        }
+
+        //razoring, this far below alpha only captures can still get there, so let the quiescence search decide
+        if (isRazoringCandidate(board, depth, highest, lowest)
+                && this.boardEvaluator.evaluate(board, depth) + this.searchParameters.getRazoringMargin() <= highest) {
+            final int value = this.quiescence.max(board, highest, lowest);
+            if (this.stopped) {
+                return 0;
+            }
+            if (value <= highest) {
+                this.razorCutoffs++;
+                return highest;
+            }
+        }
+
+        //keep track of alpha
+        int currentHighest = highest;
+        int bestMove = PackedMove.NULL_MOVE;
+
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        this.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
+        final boolean inCheck = board.isInCheck();
+
+        //futility, a quiet move cannot make up this much in the last ply
+        final boolean futile = isFutilityCandidate(depth, highest, lowest, inCheck)
+                && this.boardEvaluator.evaluate(board, depth) + this.searchParameters.getFutilityMargin() <= highest;
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+
+            if (futile && !MoveOrderer.isTactical(moves.get(i)) && !board.isInCheck()) {
+                board.unmakeMove();
+                this.futilityPrunes++;
+                continue;
+            }
+
+            //only the first move gets the full window, the rest just have to prove they are no better
+            int value;
+            if (i == 0) {
+                value = min(board, depth - 1, currentHighest, lowest, true);
+            } else {
+                //late quiet moves are unlikely to be best, so they get to prove it at a reduced depth first
+                final int reduction = lateMoveReduction(board, depth, i, moves.get(i), inCheck);
+                value = min(board, depth - 1 - reduction, currentHighest, currentHighest + 1, true);
+                if (reduction > 0 && value > currentHighest) {
+                    this.lateMoveReSearches++;
+                    value = min(board, depth - 1, currentHighest, currentHighest + 1, true);
+                }
+                if (value > currentHighest && value < lowest) {
+                    value = min(board, depth - 1, currentHighest, lowest, true);
+                }
+            }
+
+            board.unmakeMove();
+
+            //an unfinished search proves nothing, so it must not reach the table
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value > currentHighest) {
+                currentHighest = value;
+                bestMove = moves.get(i);
+            }
+
+            if (currentHighest >= lowest) {
+                this.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, lowest, depth, TranspositionTable.LOWER_BOUND);
+                return lowest;
+            }
+        }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentHighest, depth,
+                TranspositionTable.boundOf(currentHighest, highest, lowest));
+        return currentHighest;
+    }
+
+    private int min(final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final boolean nullMoveAllowed) {
+
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (depth == 0) {
+            return this.quiescence.min(board, highest, lowest);
+        }
+
+        if (isOutOfTime()) {
+            return 0;
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final long entry = this.transpositionTable.probe(zobristKey);
+        if (entry != TranspositionTable.NO_ENTRY && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = TranspositionTable.getScore(entry);
+            final int bound = TranspositionTable.getBound(entry);
+            if (bound == TranspositionTable.EXACT) {
+                return score;
+            }
+            if (bound == TranspositionTable.LOWER_BOUND && score >= lowest) {
+                return lowest;
+            }
+            if (bound == TranspositionTable.UPPER_BOUND && score <= highest) {
+                return highest;
+            }
+        }
+
+        if (nullMoveAllowed && isNullMoveCandidate(board, depth, highest, lowest)) {
+            final int reduction = this.searchParameters.getNullMoveReduction();
+            board.makeNullMove();
+            final int value = max(board, Math.max(0, depth - 1 - reduction), highest, highest + 1, false);
+            board.unmakeMove();
+            if (this.stopped) {
+                return 0;
+            }
+            if (value <= highest) {
+                final boolean confirmed = !needsVerification(board) ||
+                        min(board, depth - reduction, highest, lowest, false) <= highest;
+                if (this.stopped) {
+                    return 0;
+                }
+                if (confirmed) {
+                    this.nullMoveCutoffs++;
+                    return highest;
+                }
+            }
+        }
+
+        if (isRazoringCandidate(board, depth, highest, lowest)
+                && this.boardEvaluator.evaluate(board, depth) - this.searchParameters.getRazoringMargin() >= lowest) {
+            final int value = this.quiescence.min(board, highest, lowest);
+            if (this.stopped) {
+                return 0;
+            }
+            if (value >= lowest) {
+                this.razorCutoffs++;
+                return lowest;
+            }
+        }
+
+        //keep track of beta
+        int currentLowest = lowest;
+        int bestMove = PackedMove.NULL_MOVE;
+
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        this.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(entry));
+        final boolean inCheck = board.isInCheck();
+
+        final boolean futile = isFutilityCandidate(depth, highest, lowest, inCheck)
+                && this.boardEvaluator.evaluate(board, depth) - this.searchParameters.getFutilityMargin() >= lowest;
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+
+            if (futile && !MoveOrderer.isTactical(moves.get(i)) && !board.isInCheck()) {
+                board.unmakeMove();
+                this.futilityPrunes++;
+                continue;
+            }
+
+            int value;
+            if (i == 0) {
+                value = max(board, depth - 1, highest, currentLowest, true);
+            } else {
+                final int reduction = lateMoveReduction(board, depth, i, moves.get(i), inCheck);
+                value = max(board, depth - 1 - reduction, currentLowest - 1, currentLowest, true);
+                if (reduction > 0 && value < currentLowest) {
+                    this.lateMoveReSearches++;
+                    value = max(board, depth - 1, currentLowest - 1, currentLowest, true);
+                }
+                if (value < currentLowest && value > highest) {
+                    value = max(board, depth - 1, highest, currentLowest, true);
+                }
+            }
+
+            board.unmakeMove();
+
+            if (this.stopped) {
+                return 0;
+            }
+
+            if (value < currentLowest) {
+                currentLowest = value;
+                bestMove = moves.get(i);
+            }
+
+            if (currentLowest <= highest) {
+                this.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, highest, depth, TranspositionTable.UPPER_BOUND);
+                return highest;
+            }
+        }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentLowest, depth,
+                TranspositionTable.boundOf(currentLowest, highest, lowest));
+        return currentLowest;
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+/**
+ *
+ * The quiescence search every searcher runs where its nominal depth runs out. The side to move
+ * may stand pat on the static score or try its captures and promotions until the position is quiet,
+ * so the horizon never falls in the middle of an exchange. In check there is no standing pat and
+ * every evasion is tried.
+ *
+ * Out of check a capture is skipped when even winning the piece outright with the delta margin of
+ * the SearchParameters to spare would not reach alpha, or when it loses material once the exchange
+ * is played out.
+ *
+ * It uses the move orderer of the thread it runs on, so every search thread needs its own, and it
+ * asks the searcher through Cancellation whether to give up.
+ *
+ * */
+
+final class QuiescenceSearch {
+
+    interface Cancellation {
+
+        //asked once a node, may count it and look at the clock
+        boolean isOutOfTime();
+
+        //asked after each move, only whether the search has been given up already
+        boolean isStopped();
+    }
+
+    private final BoardEvaluator boardEvaluator;
+    private final MoveOrderer moveOrderer;
+    private final SearchParameters searchParameters;
+    private final Cancellation cancellation;
+
+    private long deltaPrunes;
+    private long losingCapturePrunes;
+
+    QuiescenceSearch(final BoardEvaluator boardEvaluator,
+                     final MoveOrderer moveOrderer,
+                     final SearchParameters searchParameters,
+                     final Cancellation cancellation) {
+        this.boardEvaluator = boardEvaluator;
+        this.moveOrderer = moveOrderer;
+        this.searchParameters = searchParameters;
+        this.cancellation = cancellation;
+    }
+
+    long getDeltaPrunes() {
+        return this.deltaPrunes;
+    }
+
+    long getLosingCapturePrunes() {
+        return this.losingCapturePrunes;
+    }
+
+    void resetCounters() {
+        this.deltaPrunes = 0;
+        this.losingCapturePrunes = 0;
+    }
+
+    //for the side that maximises
+    int max(final SearchBoard board,
+            final int highest,
+            final int lowest) {
+
+        if (this.cancellation.isOutOfTime()) {
+            return 0;
+        }
+
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate, and too deep a line just stops
+        if (moves.isEmpty() || board.getPly() >= SearchBoard.MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(board, 0);
+        }
+
+        final boolean inCheck = board.isInCheck();
+        final int standPat = inCheck ? Integer.MIN_VALUE : this.boardEvaluator.evaluate(board, 0);
+
+        //keep track of alpha, which standing pat already guarantees
+        int currentHighest = Math.max(highest, standPat);
+        if (currentHighest >= lowest) {
+            return lowest;
+        }
+
+        this.moveOrderer.orderMoves(board, moves, PackedMove.NULL_MOVE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            if (!inCheck) {
+                if (!MoveOrderer.isTactical(move)) {
+                    continue;
+                }
+                //delta pruning, not even winning the piece outright with a margin to spare would reach alpha
+                if (this.searchParameters.isDeltaPruningEnabled()
+                        && standPat + MoveOrderer.materialGain(move) + this.searchParameters.getDeltaMargin() <= currentHighest) {
+                    this.deltaPrunes++;
+                    continue;
+                }
+                //a capture that loses material once the exchange is played out is not worth following,
+                //the orderer has already played it out
+                if (this.moveOrderer.isLosingCapture(board, i)) {
+                    this.losingCapturePrunes++;
+                    continue;
+                }
+            }
+
+            board.makeMove(move);
+            final int value = min(board, currentHighest, lowest);
+            board.unmakeMove();
+
+            if (this.cancellation.isStopped()) {
+                return 0;
+            }
+
+            currentHighest = Math.max(currentHighest, value);
+            if (currentHighest >= lowest) {
+                return lowest;
+            }
+        }
+
+        return currentHighest;
+    }
+
+    //for the side that minimises
+    int min(final SearchBoard board,
+            final int highest,
+            final int lowest) {
+
+        if (this.cancellation.isOutOfTime()) {
+            return 0;
+        }
+
+        final MoveList moves = board.generateMoves();
+
+        if (moves.isEmpty() || board.getPly() >= SearchBoard.MAX_PLY - 1) {
+            return this.boardEvaluator.evaluate(board, 0);
+        }
+
+        final boolean inCheck = board.isInCheck();
+        final int standPat = inCheck ? Integer.MAX_VALUE : this.boardEvaluator.evaluate(board, 0);
+
+        //keep track of beta, which standing pat already guarantees
+        int currentLowest = Math.min(lowest, standPat);
+        if (currentLowest <= highest) {
+            return highest;
+        }
+
+        this.moveOrderer.orderMoves(board, moves, PackedMove.NULL_MOVE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            if (!inCheck) {
+                if (!MoveOrderer.isTactical(move)) {
+                    continue;
+                }
+                if (this.searchParameters.isDeltaPruningEnabled()
+                        && standPat - MoveOrderer.materialGain(move) - this.searchParameters.getDeltaMargin() >= currentLowest) {
+                    this.deltaPrunes++;
+                    continue;
+                }
+                if (this.moveOrderer.isLosingCapture(board, i)) {
+                    this.losingCapturePrunes++;
+                    continue;
+                }
+            }
+
+            board.makeMove(move);
+            final int value = max(board, highest, currentLowest);
+            board.unmakeMove();
+
+            if (this.cancellation.isStopped()) {
+                return 0;
+            }
+
+            currentLowest = Math.min(currentLowest, value);
+            if (currentLowest <= highest) {
+                return highest;
+            }
+        }
+
+        return currentLowest;
+    }
+
+}
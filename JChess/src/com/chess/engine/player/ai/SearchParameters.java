@@ -0,0 +1,195 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.pieces.Piece;
+
+/**
+ *
+ * The selective search settings of PrincipalVariationSearch, built with the Builder. The other
+ * searchers only read the delta margin, for the QuiescenceSearch they share.
+ *
+ * Null move pruning: the side to move passes, and if a search reduced by nullMoveReduction
+ * still fails high the node is cut. Passing is never worse than moving except in zugzwang,
+ * so when the side to move has no more than nullMoveVerificationMaterial in pieces the cutoff
+ * is confirmed by a reduced search that really moves. With no pieces at all it is skipped.
+ *
+ * Late move reductions: quiet moves from lateMoveIndex on, in nodes at least lateMoveMinDepth
+ * deep, are searched lateMoveReduction plies shallower and only searched again at full depth
+ * when they beat alpha.
+ *
+ * Futility pruning: at frontier nodes, one ply from the horizon, a quiet move that does not give
+ * check is skipped when the static score plus futilityMargin still cannot reach alpha.
+ *
+ * Razoring: at pre-frontier nodes, two plies from the horizon, a static score more than
+ * razoringMargin short of alpha drops straight into the quiescence search, and the node is cut
+ * if even the captures cannot get there.
+ *
+ * Delta pruning: in the quiescence search a capture is skipped when the piece it wins plus
+ * deltaMargin still leaves the score below alpha.
+ *
+ * Futility pruning and razoring are only tried at null window nodes and never in check.
+ *
+ * A reduction or margin of 0 turns the technique off.
+ *
+ * */
+
+public final class SearchParameters {
+
+    //plain principal variation search, every move to full depth
+    public static final SearchParameters FULL_WIDTH = new Builder()
+            .setNullMoveReduction(0)
+            .setLateMoveReduction(0)
+            .setFutilityMargin(0)
+            .setRazoringMargin(0)
+            .build();
+
+    public static final SearchParameters SELECTIVE = new Builder().build();
+
+    private final int nullMoveReduction;
+    private final int nullMoveMinDepth;
+    private final int nullMoveVerificationMaterial;
+    private final int lateMoveReduction;
+    private final int lateMoveMinDepth;
+    private final int lateMoveIndex;
+    private final int futilityMargin;
+    private final int razoringMargin;
+    private final int deltaMargin;
+
+    private SearchParameters(final Builder builder) {
+        this.nullMoveReduction = builder.nullMoveReduction;
+        this.nullMoveMinDepth = builder.nullMoveMinDepth;
+        this.nullMoveVerificationMaterial = builder.nullMoveVerificationMaterial;
+        this.lateMoveReduction = builder.lateMoveReduction;
+        this.lateMoveMinDepth = builder.lateMoveMinDepth;
+        this.lateMoveIndex = builder.lateMoveIndex;
+        this.futilityMargin = builder.futilityMargin;
+        this.razoringMargin = builder.razoringMargin;
+        this.deltaMargin = builder.deltaMargin;
+    }
+
+    public boolean isNullMoveEnabled() {
+        return this.nullMoveReduction > 0;
+    }
+
+    public int getNullMoveReduction() {
+        return this.nullMoveReduction;
+    }
+
+    public int getNullMoveMinDepth() {
+        return this.nullMoveMinDepth;
+    }
+
+    public int getNullMoveVerificationMaterial() {
+        return this.nullMoveVerificationMaterial;
+    }
+
+    public boolean isLateMoveReductionEnabled() {
+        return this.lateMoveReduction > 0;
+    }
+
+    public int getLateMoveReduction() {
+        return this.lateMoveReduction;
+    }
+
+    public int getLateMoveMinDepth() {
+        return this.lateMoveMinDepth;
+    }
+
+    public int getLateMoveIndex() {
+        return this.lateMoveIndex;
+    }
+
+    public boolean isFutilityPruningEnabled() {
+        return this.futilityMargin > 0;
+    }
+
+    public int getFutilityMargin() {
+        return this.futilityMargin;
+    }
+
+    public boolean isRazoringEnabled() {
+        return this.razoringMargin > 0;
+    }
+
+    public int getRazoringMargin() {
+        return this.razoringMargin;
+    }
+
+    public boolean isDeltaPruningEnabled() {
+        return this.deltaMargin > 0;
+    }
+
+    public int getDeltaMargin() {
+        return this.deltaMargin;
+    }
+
+    @Override
+    public String toString() {
+        return "null move R=" + this.nullMoveReduction + ", late move R=" + this.lateMoveReduction +
+                ", futility " + this.futilityMargin + ", razoring " + this.razoringMargin + ", delta " + this.deltaMargin;
+    }
+
+    public static class Builder {
+
+        int nullMoveReduction = 2;
+        int nullMoveMinDepth = 3;
+        int nullMoveVerificationMaterial = Piece.PieceType.ROOK.getPieceValue() + Piece.PieceType.BISHOP.getPieceValue();
+        int lateMoveReduction = 1;
+        int lateMoveMinDepth = 3;
+        int lateMoveIndex = 3;
+        int futilityMargin = Piece.PieceType.KNIGHT.getPieceValue();
+        int razoringMargin = Piece.PieceType.ROOK.getPieceValue();
+        //what positional terms can add to a capture on top of the material it wins
+        int deltaMargin = 2 * Piece.PieceType.PAWN.getPieceValue();
+
+        public Builder setNullMoveReduction(final int nullMoveReduction) {
+            this.nullMoveReduction = nullMoveReduction;
+            return this;
+        }
+
+        public Builder setNullMoveMinDepth(final int nullMoveMinDepth) {
+            this.nullMoveMinDepth = nullMoveMinDepth;
+            return this;
+        }
+
+        public Builder setNullMoveVerificationMaterial(final int nullMoveVerificationMaterial) {
+            this.nullMoveVerificationMaterial = nullMoveVerificationMaterial;
+            return this;
+        }
+
+        public Builder setLateMoveReduction(final int lateMoveReduction) {
+            this.lateMoveReduction = lateMoveReduction;
+            return this;
+        }
+
+        public Builder setLateMoveMinDepth(final int lateMoveMinDepth) {
+            this.lateMoveMinDepth = lateMoveMinDepth;
+            return this;
+        }
+
+        public Builder setLateMoveIndex(final int lateMoveIndex) {
+            this.lateMoveIndex = lateMoveIndex;
+            return this;
+        }
+
+        public Builder setFutilityMargin(final int futilityMargin) {
+            this.futilityMargin = futilityMargin;
+            return this;
+        }
+
+        public Builder setRazoringMargin(final int razoringMargin) {
+            this.razoringMargin = razoringMargin;
+            return this;
+        }
+
+        public Builder setDeltaMargin(final int deltaMargin) {
+            this.deltaMargin = deltaMargin;
+            return this;
+        }
+
+        public SearchParameters build() {
+            return new SearchParameters(this);
+        }
+
+    }
+
+}
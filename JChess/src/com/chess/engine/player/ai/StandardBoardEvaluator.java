@@ -1,6 +1,12 @@
 package com.chess.engine.player.ai;
 
+import com.chess.engine.Alliance;
+import com.chess.engine.board.BitBoardPosition;
+import com.chess.engine.board.BitBoards;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.MoveGenerator;
+import com.chess.engine.board.SearchBoard;
 import com.chess.engine.pieces.*;
 import com.chess.engine.player.Player;
 
@@ -13,17 +19,29 @@ import com.chess.engine.player.Player;
  * Evaluate function takes the score of the white player - the black player
  * Evauluate function is passed a board to evaluated and a current stage depth
  *
+ * The SearchBoard overload scores the same terms straight off the bitboards
+ *
+ * An ending with a bitbase is scored from it: level when drawn, a queen up on top of the rest
+ * when won, plus a push of the lone king towards a mate
+ *
  * */
 
 public final class StandardBoardEvaluator implements BoardEvaluator {
 
     private static final int CHECK_BONUS = 8;
     private static final int CASTLED_BONUS = 40;
+    private static final int KNOWN_WIN_BONUS = Piece.PieceType.QUEEN.getPieceValue();
+    private static final int MOP_UP_WEIGHT = 10;
 
 
     @Override
     public int evaluate(final Board board, final int depth) {
-        return scorePlayer(board.whitePlayer(), depth) - scorePlayer(board.blackPlayer(), depth);
+        final int result = Bitbases.probe(board);
+        if (result == Bitbases.DRAW) {
+            return DRAW_SCORE;
+        }
+        final int score = scorePlayer(board.whitePlayer(), depth) - scorePlayer(board.blackPlayer(), depth);
+        return result == Bitbases.UNKNOWN ? score : score + knownWin(board, result, board.currentPlayer().isInCheckMate());
     }
 
     private int scorePlayer(final Player player, int depth) {
@@ -37,6 +55,92 @@ public final class StandardBoardEvaluator implements BoardEvaluator {
     }
 
 
+    @Override
+    public int evaluate(final SearchBoard board, final int depth) {
+        final int result = Bitbases.probe(board);
+        if (result == Bitbases.DRAW) {
+            return DRAW_SCORE;
+        }
+        final int score = scorePlayer(board, Alliance.WHITE, depth) - scorePlayer(board, Alliance.BLACK, depth);
+        return result == Bitbases.UNKNOWN ? score : score + knownWin(board, result, board.isInCheck() && !board.hasLegalMoves());
+    }
+
+    private int scorePlayer(final SearchBoard board, final Alliance alliance, final int depth) {
+
+        return pieceValue(board, alliance)
+                + check(board, alliance)
+                + checkMate(board, alliance)
+                + castled(board, alliance)
+                + mobility(board, alliance)
+                + futureError(depth);
+    }
+
+    //the mate itself counts the bonus twice, so the search goes for it rather than circling
+    private static int knownWin(final BitBoardPosition position, final int result, final boolean mated) {
+        final Alliance strong = result == Bitbases.WIN ? position.getMoveMaker() : position.getMoveMaker().getOpponent();
+        final int bonus = (mated ? 2 : 1) * KNOWN_WIN_BONUS + mopUp(position, strong);
+        return strong.isWhite() ? bonus : -bonus;
+    }
+
+    //a pawn runs with its king in front of it, otherwise the lone king is driven to the edge with
+    //the other king next to it, bishop and knight can only mate in a corner of the bishop's colour
+    private static int mopUp(final BitBoardPosition position, final Alliance strong) {
+        final int strongKing = BitBoards.firstSquare(position.getPieceBitBoard(strong, Piece.PieceType.KING));
+        final int weakKing = BitBoards.firstSquare(position.getPieceBitBoard(strong.getOpponent(), Piece.PieceType.KING));
+        final long pawns = position.getPieceBitBoard(strong, Piece.PieceType.PAWN);
+        if (pawns != BitBoards.EMPTY) {
+            final int pawn = BitBoards.firstSquare(pawns);
+            final int row = pawn / BoardUtils.NUM_TILES_PER_ROW;
+            final int front = pawn + strong.getDirection() * BoardUtils.NUM_TILES_PER_ROW;
+            return MOP_UP_WEIGHT * ((strong.isWhite() ? 7 - row : row) + 14 - distance(strongKing, front));
+        }
+        final long bishops = position.getPieceBitBoard(strong, Piece.PieceType.BISHOP);
+        final int edge = bishops != BitBoards.EMPTY ? 14 - cornerDistance(weakKing, BitBoards.firstSquare(bishops)) : centreDistance(weakKing);
+        return MOP_UP_WEIGHT * (edge + 14 - distance(strongKing, weakKing));
+    }
+
+    private static int distance(final int first, final int second) {
+        return Math.abs(first / BoardUtils.NUM_TILES_PER_ROW - second / BoardUtils.NUM_TILES_PER_ROW)
+                + Math.abs(first % BoardUtils.NUM_TILES_PER_ROW - second % BoardUtils.NUM_TILES_PER_ROW);
+    }
+
+    private static int centreDistance(final int square) {
+        final int row = square / BoardUtils.NUM_TILES_PER_ROW;
+        final int column = square % BoardUtils.NUM_TILES_PER_ROW;
+        return Math.max(3 - row, row - 4) + Math.max(3 - column, column - 4);
+    }
+
+    //to the nearer of the two corners the same colour as the bishop, a8 and h1 are light
+    private static int cornerDistance(final int square, final int bishop) {
+        final boolean light = (bishop / BoardUtils.NUM_TILES_PER_ROW + bishop % BoardUtils.NUM_TILES_PER_ROW) % 2 == 0;
+        return light ? Math.min(distance(square, 0), distance(square, 63)) : Math.min(distance(square, 7), distance(square, 56));
+    }
+
+    private static int castled(final SearchBoard board, final Alliance alliance) {
+        return board.isCastled(alliance) ? CASTLED_BONUS : 0;
+    }
+
+    private static int check(final SearchBoard board, final Alliance alliance) {
+        return board.isInCheck(alliance.getOpponent()) ? CHECK_BONUS : 0;
+    }
+
+    //only the side to move can be mated
+    private static int checkMate(final SearchBoard board, final Alliance alliance) {
+        return board.getMoveMaker() == alliance.getOpponent() && board.isInCheck() && !board.hasLegalMoves() ? CHECK_BONUS*2 : 0;
+    }
+
+    private static int mobility(final SearchBoard board, final Alliance alliance) {
+        return MoveGenerator.countMoves(board, alliance);
+    }
+
+    private static int pieceValue(final SearchBoard board, final Alliance alliance) {
+        int pieceValueScore = 0;
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+            pieceValueScore += BitBoards.count(board.getPieceBitBoard(alliance, pieceType)) * pieceType.getPieceValue();
+        }
+        return pieceValueScore;
+    }
+
     private static int castled(Player player) {
         return player.isCastled() ? CASTLED_BONUS : 0;
     }
@@ -0,0 +1,83 @@
+package com.chess.engine.player.ai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * How long a searcher may think about one move, and how deep it may go at most.
+ *
+ *   fixedDepth(d)            no clock, deepen until depth d is done
+ *   perMove(ms)              a flat budget for every move
+ *   clock(remaining, inc)    a share of the time left on the game clock plus most of the increment
+ *
+ * Searchers deepen one ply at a time and keep the best move of the last iteration they
+ * finished, so whatever the budget, the move they return comes from a complete search.
+ *
+ * */
+
+public final class TimeControl {
+
+    public static final int MAX_DEPTH = TranspositionTable.MAX_DEPTH;
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    //games are assumed to last this many more moves when sharing out the clock
+    private static final int EXPECTED_MOVES_TO_GO = 30;
+
+    //kept back on the clock for the time it takes to hand the move over
+    private static final long SAFETY_MARGIN_MILLIS = 50;
+
+    private final int maxDepth;
+    private final long budgetMillis;
+
+    private TimeControl(final int maxDepth, final long budgetMillis) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+        this.budgetMillis = budgetMillis;
+    }
+
+    public static TimeControl fixedDepth(final int depth) {
+        return new TimeControl(depth, NO_LIMIT);
+    }
+
+    public static TimeControl perMove(final long moveTimeMillis) {
+        return new TimeControl(MAX_DEPTH, Math.max(1, moveTimeMillis));
+    }
+
+    public static TimeControl clock(final long remainingMillis, final long incrementMillis) {
+        final long usable = Math.max(1, remainingMillis - SAFETY_MARGIN_MILLIS);
+        final long share = remainingMillis / EXPECTED_MOVES_TO_GO + incrementMillis * 3 / 4;
+        return new TimeControl(MAX_DEPTH, Math.max(1, Math.min(share, usable)));
+    }
+
+    public TimeControl withMaxDepth(final int depth) {
+        return new TimeControl(depth, this.budgetMillis);
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getBudgetMillis() {
+        return this.budgetMillis;
+    }
+
+    public boolean isTimed() {
+        return this.budgetMillis != NO_LIMIT;
+    }
+
+    //the System.nanoTime() after which a search started at startNanos has to stop
+    public long getDeadline(final long startNanos) {
+        return isTimed() ? startNanos + TimeUnit.MILLISECONDS.toNanos(this.budgetMillis) : NO_LIMIT;
+    }
+
+    //the next iteration takes several times as long as the last, so past half the budget it would not finish
+    public boolean hasTimeForNextIteration(final long startNanos) {
+        return !isTimed() || System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(this.budgetMillis) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return isTimed() ? this.budgetMillis + " ms, depth <= " + this.maxDepth : "depth " + this.maxDepth;
+    }
+
+}
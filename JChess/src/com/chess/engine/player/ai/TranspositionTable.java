@@ -0,0 +1,149 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Move;
+import com.chess.engine.board.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ *
+ * A fixed size hash table of search results, shared by every searcher that is handed it.
+ *
+ * Each entry is two longs, the Zobrist key XORed with the data and the data itself:
+ *
+ * bits  0-23  best move, a packed move (NULL_MOVE when the node failed low)
+ * bits 24-55  score, from white's point of view like the evaluator
+ * bits 56-61  remaining depth the score was searched to
+ * bits 62-63  bound (EXACT, LOWER_BOUND or UPPER_BOUND, never 0)
+ *
+ * Threads write the two longs without locking. A probe only accepts an entry when
+ * first ^ second gives back the key it asked for, so a slot torn by two writers racing
+ * is read as a miss instead of as someone else's result.
+ *
+ * */
+
+public final class TranspositionTable {
+
+    public static final int DEFAULT_SIZE_MB = 64;
+
+    public static final long NO_ENTRY = 0L;
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    public static final int MAX_DEPTH = 63;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    private static final long MOVE_MASK = 0xFFFFFFL;
+    private static final long DEPTH_MASK = 0x3FL;
+    private static final long BOUND_MASK = 0x3L;
+
+    private static final int SCORE_SHIFT = 24;
+    private static final int DEPTH_SHIFT = 56;
+    private static final int BOUND_SHIFT = 62;
+
+    private final long[] entries;
+    private final int mask;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    public TranspositionTable(final int sizeMegaBytes) {
+        final long entryCount = Long.highestOneBit(Math.max(1L, ((long) sizeMegaBytes << 20) / ENTRY_BYTES));
+        final int size = (int) Math.min(entryCount, 1 << 29);
+        this.entries = new long[size * 2];
+        this.mask = size - 1;
+    }
+
+    //the packed entry for the key, or NO_ENTRY
+    public long probe(final long zobristKey) {
+        final int index = index(zobristKey);
+        final long data = this.entries[index + 1];
+        return (this.entries[index] ^ data) == zobristKey ? data : NO_ENTRY;
+    }
+
+    public void store(final long zobristKey,
+                      final int move,
+                      final int score,
+                      final int depth,
+                      final int bound) {
+
+        final int index = index(zobristKey);
+
+        //a shallower result for the same position never overwrites a deeper one
+        final long oldData = this.entries[index + 1];
+        if((this.entries[index] ^ oldData) == zobristKey && getDepth(oldData) > depth){
+            return;
+        }
+
+        final long data = (move & MOVE_MASK)
+                | ((score & 0xFFFFFFFFL) << SCORE_SHIFT)
+                | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+
+        this.entries[index] = zobristKey ^ data;
+        this.entries[index + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(this.entries, 0L);
+    }
+
+    public int getNumEntries() {
+        return this.entries.length / 2;
+    }
+
+    public static int getMove(final long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int getScore(final long entry) {
+        return (int) (entry >>> SCORE_SHIFT);
+    }
+
+    public static int getDepth(final long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int getBound(final long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    public static boolean hasMove(final long entry) {
+        return getMove(entry) != PackedMove.NULL_MOVE;
+    }
+
+    //the root moves with the stored best move, if any, searched first
+    public List<Move> orderRootMoves(final long zobristKey, final Collection<Move> moves) {
+        final List<Move> orderedMoves = new ArrayList<>(moves);
+        final long entry = probe(zobristKey);
+        if(entry != NO_ENTRY && hasMove(entry)){
+            for(int i = 0; i < orderedMoves.size(); i++){
+                if(orderedMoves.get(i).toPackedMove() == getMove(entry)){
+                    orderedMoves.add(0, orderedMoves.remove(i));
+                    break;
+                }
+            }
+        }
+        return orderedMoves;
+    }
+
+    //the bound a fail hard search result carries, given the window it was searched with
+    public static int boundOf(final int score, final int alpha, final int beta) {
+        if(score <= alpha){
+            return UPPER_BOUND;
+        }
+        return score >= beta ? LOWER_BOUND : EXACT;
+    }
+
+    private int index(final long zobristKey) {
+        return ((int) zobristKey & this.mask) * 2;
+    }
+
+}
@@ -0,0 +1,660 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Young brothers wait: a parallel alpha beta on a fork join pool.
+ *
+ * The first move of a node, the eldest brother, is always searched alone. Once it has set a bound
+ * the younger brothers are only refutation work, so from splitDepth up they are forked and searched
+ * at the same time, each on its own copy of the board.
+ *
+ * The brothers of a split share one SplitNode. Every result goes into it straight away and a brother
+ * still running reads the better bound before each of its own moves, as does a split nested under it,
+ * which reads its cutoff through the chain of parents. When one brother fails high the split node is
+ * aborted, and every task under it, at any depth, unwinds without finishing.
+ *
+ * The result at a fixed depth does not depend on the number of threads or on their timing: the table
+ * is only used to order moves, never to cut, and two moves with the same score are decided by their
+ * place in the root move order rather than by which one finished first. That only holds while the
+ * value of a subtree does not depend on the window it is searched with, and a brother's window depends
+ * on what its brothers have finished when it starts. Delta pruning skips captures by alpha, so it is
+ * off by default; SearchParameters with a delta margin trade the reproducible result for speed.
+ *
+ * Call shutdown() when the game is over.
+ *
+ * */
+
+public final class YoungBrothersWait implements MoveStrategy {
+
+    private static final int CLOCK_CHECK_NODES = 1024;
+
+    //below this depth a subtree is too small to be worth a task
+    private static final int DEFAULT_SPLIT_DEPTH = 3;
+
+    //no pruning that depends on the window, see above
+    private static final SearchParameters DEFAULT_SEARCH_PARAMETERS = new SearchParameters.Builder()
+            .setDeltaMargin(0)
+            .build();
+
+    private final BoardEvaluator boardEvaluator;
+    private final int searchDepth;
+    private final int splitDepth;
+    private final TranspositionTable transpositionTable;
+    private final SearchParameters searchParameters;
+    private final ForkJoinPool pool;
+
+    //killers and history are per thread, fork join workers live as long as the pool
+    private final ThreadLocal<Worker> workers;
+    private final AtomicInteger searchId;
+    private final LongAdder nodes;
+
+    private volatile long deadline;
+    private volatile SplitNode rootNode;
+
+    public YoungBrothersWait(final int searchDepth, final int threadCount) {
+        this(searchDepth, threadCount, new TranspositionTable());
+    }
+
+    public YoungBrothersWait(final int searchDepth,
+                             final int threadCount,
+                             final TranspositionTable transpositionTable) {
+        this(searchDepth, threadCount, transpositionTable, DEFAULT_SPLIT_DEPTH);
+    }
+
+    public YoungBrothersWait(final int searchDepth,
+                             final int threadCount,
+                             final TranspositionTable transpositionTable,
+                             final int splitDepth) {
+        this(searchDepth, threadCount, transpositionTable, splitDepth, DEFAULT_SEARCH_PARAMETERS);
+    }
+
+    public YoungBrothersWait(final int searchDepth,
+                             final int threadCount,
+                             final TranspositionTable transpositionTable,
+                             final int splitDepth,
+                             final SearchParameters searchParameters) {
+        this.boardEvaluator = new StandardBoardEvaluator();
+        this.searchDepth = searchDepth;
+        this.splitDepth = Math.max(1, splitDepth);
+        this.transpositionTable = transpositionTable;
+        this.searchParameters = searchParameters;
+        this.pool = new ForkJoinPool(Math.max(1, threadCount));
+        this.workers = ThreadLocal.withInitial(Worker::new);
+        this.searchId = new AtomicInteger();
+        this.nodes = new LongAdder();
+    }
+
+    @Override
+    public String toString() {
+        return "YBWC";
+    }
+
+    @Override
+    public Move execute(Board board) {
+        return execute(board, TimeControl.fixedDepth(this.searchDepth));
+    }
+
+    @Override
+    public Move execute(final Board board, final TimeControl timeControl) {
+
+        System.out.println(board.currentPlayer() + " Thinking with " + timeControl + " on " +
+                this.pool.getParallelism() + " threads");
+
+        final long startTime = System.nanoTime();
+        this.searchId.incrementAndGet();
+        this.nodes.reset();
+
+        //Holder best move, from the last iteration that finished.
+        Move bestMove = null;
+
+        for (int depth = 1; depth <= timeControl.getMaxDepth(); depth++) {
+
+            //the first iteration always finishes, so there is a move to play however short the budget
+            this.deadline = depth == 1 ? Long.MAX_VALUE : timeControl.getDeadline(startTime);
+
+            final RootTask rootTask = new RootTask(board, depth);
+            this.pool.invoke(rootTask);
+            if (rootTask.rootNode.isAborted()) {
+                break;
+            }
+
+            bestMove = rootTask.bestMove;
+            System.out.println("depth " + depth + " " + bestMove + " score " + rootTask.rootNode.getBestValue() +
+                    " nodes " + this.nodes.sum() + " " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+
+            if (!timeControl.hasTimeForNextIteration(startTime)) {
+                break;
+            }
+        }
+
+        //return the best move
+        return bestMove;
+    }
+
+    public int getThreadCount() {
+        return this.pool.getParallelism();
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    //an aborted split anywhere above means this result will be thrown away, so stop working on it
+    private boolean isCancelled(final Worker worker, final SplitNode split) {
+        this.nodes.increment();
+        if ((++worker.nodes & (CLOCK_CHECK_NODES - 1)) == 0 && System.nanoTime() >= this.deadline) {
+            this.rootNode.abort();
+        }
+        return split.isAborted();
+    }
+
+    /**
+     * splitIndex is the brother of split this node is searched under, -1 on the eldest line of the root.
+     * A node from the depth brothers start at keeps picking up the better bounds found by its brothers
+     * and by the splits above.
+     */
+    private int max(final Worker worker,
+                    final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final SplitNode split,
+                    final int splitIndex) {
+
+        //a repetition or fifty quiet moves end the game here, however much is still on the board
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (depth == 0) {
+            return worker.quiesceMax(board, highest, lowest, split);
+        }
+
+        if (isCancelled(worker, split)) {
+            return 0;
+        }
+
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        //the table only orders, a cutoff on a score from another thread's search would not be reproducible
+        final long zobristKey = board.getZobristKey();
+        worker.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(this.transpositionTable.probe(zobristKey)));
+
+        //keep track of alpha and beta
+        int currentHighest = highest;
+        int currentLowest = lowest;
+        int bestMove = PackedMove.NULL_MOVE;
+
+        for (int i = 0; i < moves.size(); i++) {
+
+            //the eldest brother is done, the rest can be searched at the same time
+            if (i == 1 && depth >= this.splitDepth) {
+                return splitMax(board, moves, depth, currentHighest, currentLowest, bestMove, split, splitIndex);
+            }
+
+            if (splitIndex >= 0 && depth >= this.splitDepth - 1) {
+                currentLowest = Math.min(currentLowest, split.upperBound(splitIndex));
+                if (currentHighest >= currentLowest) {
+                    return currentLowest;
+                }
+            }
+
+            board.makeMove(moves.get(i));
+            final int value = min(worker, board, depth - 1, currentHighest, currentLowest, split, splitIndex);
+            board.unmakeMove();
+
+            if (split.isAborted()) {
+                return 0;
+            }
+
+            if (value > currentHighest) {
+                currentHighest = value;
+                bestMove = moves.get(i);
+            }
+
+            if (currentHighest >= currentLowest) {
+                worker.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, currentLowest, depth, TranspositionTable.LOWER_BOUND);
+                return currentLowest;
+            }
+        }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentHighest, depth,
+                TranspositionTable.boundOf(currentHighest, highest, currentLowest));
+        return currentHighest;
+    }
+
+    private int min(final Worker worker,
+                    final SearchBoard board,
+                    final int depth,
+                    final int highest,
+                    final int lowest,
+                    final SplitNode split,
+                    final int splitIndex) {
+
+        if (board.isDraw()) {
+            return BoardEvaluator.DRAW_SCORE;
+        }
+
+        if (depth == 0) {
+            return worker.quiesceMin(board, highest, lowest, split);
+        }
+
+        if (isCancelled(worker, split)) {
+            return 0;
+        }
+
+        final MoveList moves = board.generateMoves();
+
+        //no legal move means checkmate or stalemate
+        if (moves.isEmpty()) {
+            return this.boardEvaluator.evaluate(board, depth);
+        }
+
+        final long zobristKey = board.getZobristKey();
+        worker.moveOrderer.orderMoves(board, moves, TranspositionTable.getMove(this.transpositionTable.probe(zobristKey)));
+
+        int currentHighest = highest;
+        int currentLowest = lowest;
+        int bestMove = PackedMove.NULL_MOVE;
+
+        for (int i = 0; i < moves.size(); i++) {
+
+            if (i == 1 && depth >= this.splitDepth) {
+                return splitMin(board, moves, depth, currentHighest, currentLowest, bestMove, split, splitIndex);
+            }
+
+            if (splitIndex >= 0 && depth >= this.splitDepth - 1) {
+                currentHighest = Math.max(currentHighest, split.lowerBound(splitIndex));
+                if (currentLowest <= currentHighest) {
+                    return currentHighest;
+                }
+            }
+
+            board.makeMove(moves.get(i));
+            final int value = max(worker, board, depth - 1, currentHighest, currentLowest, split, splitIndex);
+            board.unmakeMove();
+
+            if (split.isAborted()) {
+                return 0;
+            }
+
+            if (value < currentLowest) {
+                currentLowest = value;
+                bestMove = moves.get(i);
+            }
+
+            if (currentLowest <= currentHighest) {
+                worker.moveOrderer.recordCutoff(board, bestMove, depth);
+                this.transpositionTable.store(zobristKey, bestMove, currentHighest, depth, TranspositionTable.UPPER_BOUND);
+                return currentHighest;
+            }
+        }
+
+        this.transpositionTable.store(zobristKey, bestMove, currentLowest, depth,
+                TranspositionTable.boundOf(currentLowest, currentHighest, lowest));
+        return currentLowest;
+    }
+
+    //forks every brother after the eldest and waits for all of them, or for one of them to cut
+    private int splitMax(final SearchBoard board,
+                         final MoveList moves,
+                         final int depth,
+                         final int highest,
+                         final int lowest,
+                         final int eldestMove,
+                         final SplitNode parent,
+                         final int parentIndex) {
+
+        final SplitNode node = new SplitNode(parent, parentIndex, true, highest, lowest, 0, eldestMove);
+        ForkJoinTask.invokeAll(brotherTasks(board, moves, depth, node));
+
+        if (parent.isAborted()) {
+            return 0;
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final int bestMove = node.getBestMove();
+        //the cutoff may have come from a bound the splits above raised since, so that is what is proven
+        if (node.isCutoff()) {
+            final int cutoffValue = node.getCutoffValue();
+            this.workers.get().moveOrderer.recordCutoff(board, bestMove, depth);
+            this.transpositionTable.store(zobristKey, bestMove, cutoffValue, depth, TranspositionTable.LOWER_BOUND);
+            return cutoffValue;
+        }
+
+        final int value = node.getBestValue();
+        this.transpositionTable.store(zobristKey, bestMove, value, depth, TranspositionTable.boundOf(value, highest, lowest));
+        return value;
+    }
+
+    private int splitMin(final SearchBoard board,
+                         final MoveList moves,
+                         final int depth,
+                         final int highest,
+                         final int lowest,
+                         final int eldestMove,
+                         final SplitNode parent,
+                         final int parentIndex) {
+
+        final SplitNode node = new SplitNode(parent, parentIndex, false, lowest, highest, 0, eldestMove);
+        ForkJoinTask.invokeAll(brotherTasks(board, moves, depth, node));
+
+        if (parent.isAborted()) {
+            return 0;
+        }
+
+        final long zobristKey = board.getZobristKey();
+        final int bestMove = node.getBestMove();
+        if (node.isCutoff()) {
+            final int cutoffValue = node.getCutoffValue();
+            this.workers.get().moveOrderer.recordCutoff(board, bestMove, depth);
+            this.transpositionTable.store(zobristKey, bestMove, cutoffValue, depth, TranspositionTable.UPPER_BOUND);
+            return cutoffValue;
+        }
+
+        final int value = node.getBestValue();
+        this.transpositionTable.store(zobristKey, bestMove, value, depth, TranspositionTable.boundOf(value, highest, lowest));
+        return value;
+    }
+
+    //the boards are copied here, while this thread still owns the position they start from
+    private List<BrotherTask> brotherTasks(final SearchBoard board,
+                                           final MoveList moves,
+                                           final int depth,
+                                           final SplitNode node) {
+        final List<BrotherTask> tasks = new ArrayList<>();
+        for (int i = 1; i < moves.size(); i++) {
+            tasks.add(new BrotherTask(new SearchBoard(board), moves.get(i), i, depth - 1, node));
+        }
+        return tasks;
+    }
+
+    /**
+     * The shared state of the brothers of one split: the best value and move so far, the bound on
+     * the other side that makes it a cutoff, and whether the split has been abandoned.
+     *
+     * The cutoff bound it was made with only holds until the splits above improve, so the live one
+     * is read up the chain of parents, each through the brother this split is searched under.
+     *
+     * Among moves with the same value the one earlier in the move order wins, so the bound a brother
+     * is given depends on its index: one that comes before the current best has to be able to tie it.
+     */
+    private static final class SplitNode {
+
+        private final SplitNode parent;
+        private final int parentIndex;
+        private final boolean maximising;
+        private final int cutoffValue;
+
+        private int bestValue;
+        private int bestIndex;
+        private int bestMove;
+        private boolean cutoff;
+        private volatile boolean aborted;
+
+        SplitNode(final SplitNode parent,
+                  final int parentIndex,
+                  final boolean maximising,
+                  final int bestValue,
+                  final int cutoffValue,
+                  final int bestIndex,
+                  final int bestMove) {
+            this.parent = parent;
+            this.parentIndex = parentIndex;
+            this.maximising = maximising;
+            this.bestValue = bestValue;
+            this.cutoffValue = cutoffValue;
+            this.bestIndex = bestIndex;
+            this.bestMove = bestMove;
+        }
+
+        synchronized void offer(final int index, final int value, final int move) {
+            final boolean better = this.maximising ? value > this.bestValue : value < this.bestValue;
+            if (better || (value == this.bestValue && index < this.bestIndex)) {
+                this.bestValue = value;
+                this.bestIndex = index;
+                this.bestMove = move;
+            }
+            final int cutoffValue = getCutoffValue();
+            final boolean fails = this.maximising ? this.bestValue >= cutoffValue : this.bestValue <= cutoffValue;
+            if (fails) {
+                this.cutoff = true;
+                this.aborted = true;
+            }
+        }
+
+        //the alpha (or beta) the brother at index is searched with, one short of the best if it may tie it
+        synchronized int boundFor(final int index) {
+            if (index > this.bestIndex) {
+                return this.bestValue;
+            }
+            if (this.maximising) {
+                return this.bestValue == Integer.MIN_VALUE ? this.bestValue : this.bestValue - 1;
+            }
+            return this.bestValue == Integer.MAX_VALUE ? this.bestValue : this.bestValue + 1;
+        }
+
+        //the beta of a max node searched under the brother at index, from this split and every one above
+        int upperBound(final int index) {
+            final int inherited = this.parent == null ? Integer.MAX_VALUE : this.parent.upperBound(this.parentIndex);
+            if (this.maximising) {
+                return Math.min(inherited, this.cutoffValue);
+            }
+            return index < 0 ? inherited : Math.min(inherited, boundFor(index));
+        }
+
+        //the alpha of a min node searched under the brother at index
+        int lowerBound(final int index) {
+            final int inherited = this.parent == null ? Integer.MIN_VALUE : this.parent.lowerBound(this.parentIndex);
+            if (!this.maximising) {
+                return Math.max(inherited, this.cutoffValue);
+            }
+            return index < 0 ? inherited : Math.max(inherited, boundFor(index));
+        }
+
+        //the live bound a brother has to reach for this split to fail
+        int getCutoffValue() {
+            return this.maximising ? upperBound(-1) : lowerBound(-1);
+        }
+
+        synchronized int getBestValue() {
+            return this.bestValue;
+        }
+
+        synchronized int getBestMove() {
+            return this.bestMove;
+        }
+
+        synchronized int getBestIndex() {
+            return this.bestIndex;
+        }
+
+        synchronized boolean isCutoff() {
+            return this.cutoff;
+        }
+
+        void abort() {
+            this.aborted = true;
+        }
+
+        boolean isAborted() {
+            for (SplitNode node = this; node != null; node = node.parent) {
+                if (node.aborted) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final class Worker implements QuiescenceSearch.Cancellation {
+        private final MoveOrderer moveOrderer = new MoveOrderer();
+        private final QuiescenceSearch quiescence = new QuiescenceSearch(YoungBrothersWait.this.boardEvaluator,
+                this.moveOrderer, YoungBrothersWait.this.searchParameters, this);
+        private int searchId;
+        private long nodes;
+        //the split the quiescence search running on this thread reports to, it never forks so one is enough
+        private SplitNode split;
+
+        int quiesceMax(final SearchBoard board, final int highest, final int lowest, final SplitNode split) {
+            this.split = split;
+            return this.quiescence.max(board, highest, lowest);
+        }
+
+        int quiesceMin(final SearchBoard board, final int highest, final int lowest, final SplitNode split) {
+            this.split = split;
+            return this.quiescence.min(board, highest, lowest);
+        }
+
+        @Override
+        public boolean isOutOfTime() {
+            return isCancelled(this, this.split);
+        }
+
+        @Override
+        public boolean isStopped() {
+            return this.split.isAborted();
+        }
+    }
+
+    //one younger brother: its own board, one move, and the split it reports to
+    private final class BrotherTask extends RecursiveAction {
+
+        private final SearchBoard board;
+        private final int move;
+        private final int index;
+        private final int depth;
+        private final SplitNode node;
+
+        BrotherTask(final SearchBoard board,
+                    final int move,
+                    final int index,
+                    final int depth,
+                    final SplitNode node) {
+            this.board = board;
+            this.move = move;
+            this.index = index;
+            this.depth = depth;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+
+            //a brother that fails high before this one starts makes it pointless
+            if (this.node.isAborted()) {
+                return;
+            }
+
+            final Worker worker = worker();
+            this.board.makeMove(this.move);
+            final int highest = this.node.lowerBound(this.index);
+            final int lowest = this.node.upperBound(this.index);
+            final int value = this.node.maximising ?
+                    min(worker, this.board, this.depth, highest, lowest, this.node, this.index) :
+                    max(worker, this.board, this.depth, highest, lowest, this.node, this.index);
+
+            //an unfinished search proves nothing
+            if (!this.node.isAborted()) {
+                this.node.offer(this.index, value, this.move);
+            }
+        }
+    }
+
+    //the root moves are Move objects, their order comes from the table and settles ties
+    private final class RootTask extends RecursiveAction {
+
+        private final Board board;
+        private final int depth;
+        private final SplitNode rootNode;
+        private Move bestMove;
+
+        RootTask(final Board board, final int depth) {
+            this.board = board;
+            this.depth = depth;
+            final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
+            //no move has a value yet, so every move gets to tie the starting bound
+            this.rootNode = new SplitNode(null, -1, isWhite,
+                    isWhite ? Integer.MIN_VALUE : Integer.MAX_VALUE,
+                    isWhite ? Integer.MAX_VALUE : Integer.MIN_VALUE,
+                    Integer.MAX_VALUE, PackedMove.NULL_MOVE);
+            YoungBrothersWait.this.rootNode = this.rootNode;
+        }
+
+        @Override
+        protected void compute() {
+
+            final SearchBoard searchBoard = new SearchBoard(this.board);
+            final List<Move> rootMoves = new ArrayList<>(YoungBrothersWait.this.transpositionTable.orderRootMoves(
+                    searchBoard.getZobristKey(), this.board.currentPlayer().getLegalMoves()));
+            if (rootMoves.isEmpty()) {
+                return;
+            }
+
+            //the eldest root move alone, with the full window
+            final Worker worker = worker();
+            final int eldestMove = rootMoves.get(0).toPackedMove();
+            searchBoard.makeMove(eldestMove);
+            final int eldestValue = this.rootNode.maximising ?
+                    min(worker, searchBoard, this.depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, this.rootNode, -1) :
+                    max(worker, searchBoard, this.depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, this.rootNode, -1);
+            searchBoard.unmakeMove();
+            if (this.rootNode.isAborted()) {
+                return;
+            }
+            this.rootNode.offer(0, eldestValue, eldestMove);
+
+            //then all the others at once
+            final List<BrotherTask> tasks = new ArrayList<>();
+            for (int i = 1; i < rootMoves.size(); i++) {
+                tasks.add(new BrotherTask(new SearchBoard(searchBoard), rootMoves.get(i).toPackedMove(), i, this.depth - 1, this.rootNode));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            if (this.rootNode.isAborted()) {
+                return;
+            }
+
+            this.bestMove = rootMoves.get(this.rootNode.getBestIndex());
+            YoungBrothersWait.this.transpositionTable.store(searchBoard.getZobristKey(), this.rootNode.getBestMove(),
+                    this.rootNode.getBestValue(), this.depth, TranspositionTable.EXACT);
+        }
+    }
+
+    //the worker of the current thread, with its killers cleared once per search
+    private Worker worker() {
+        final Worker worker = this.workers.get();
+        final int currentSearch = this.searchId.get();
+        if (worker.searchId != currentSearch) {
+            worker.searchId = currentSearch;
+            worker.moveOrderer.newSearch();
+        }
+        return worker;
+    }
+
+}
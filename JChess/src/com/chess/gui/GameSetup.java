@@ -17,6 +17,7 @@ import javax.swing.SpinnerNumberModel;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.player.Player;
+import com.chess.engine.player.ai.TimeControl;
 import com.chess.gui.Table.PlayerType;
 
 class GameSetup extends JDialog {
@@ -24,6 +25,8 @@ class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner moveTimeSpinner;
+    private JSpinner searchThreadsSpinner;
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
@@ -58,6 +61,10 @@ class GameSetup extends JDialog {
 
         myPanel.add(new JLabel("Search"));
         this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(6, 0, Integer.MAX_VALUE, 1));
+        //0 searches every move to the full depth, anything else stops the search on the clock
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Move Time (ms)", new SpinnerNumberModel(0, 0, Integer.MAX_VALUE, 100));
+        this.searchThreadsSpinner = addLabeledSpinner(myPanel, "Search Threads",
+                new SpinnerNumberModel(Runtime.getRuntime().availableProcessors(), 1, 256, 1));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -134,4 +141,19 @@ class GameSetup extends JDialog {
     void setSearchDepth(int value) {
         this.searchDepthSpinner.setValue(value);
     }
+
+    int getSearchThreads() {
+        return (Integer)this.searchThreadsSpinner.getValue();
+    }
+
+    int getMoveTime() {
+        return (Integer)this.moveTimeSpinner.getValue();
+    }
+
+    //the search depth is always the deepest the AI goes, the move time may stop it sooner
+    TimeControl getTimeControl() {
+        return getMoveTime() > 0 ?
+                TimeControl.perMove(getMoveTime()).withMaxDepth(getSearchDepth()) :
+                TimeControl.fixedDepth(getSearchDepth());
+    }
 }
\ No newline at end of file
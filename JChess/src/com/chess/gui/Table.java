@@ -48,6 +48,13 @@ public class Table extends Observable {
 
     private final GameSetup gameSetup;
 
+    //kept for the whole session so the AI reuses what it searched on earlier moves
+    private final TranspositionTable transpositionTable;
+    private final OpeningBook openingBook;
+
+    //its helper threads are kept between moves, replaced only when the thread count changes
+    private LazySMP parallelSearch;
+
     private Board chessBoard;
 
 
@@ -96,6 +103,8 @@ public class Table extends Observable {
         this.addObserver(new TableGameAIWatcher());
 
         this.gameSetup = new GameSetup(this.gameFrame, true);
+        this.transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+        this.openingBook = OpeningBook.openDefault();
 
         this.boardDirection = BoardDirection.NORMAL;
         this.highlightLegalMoves = true;
@@ -141,6 +150,17 @@ public class Table extends Observable {
         return this.gameSetup;
     }
 
+    private synchronized LazySMP getParallelSearch(final int searchDepth) {
+        final int threads = this.gameSetup.getSearchThreads();
+        if (this.parallelSearch == null || this.parallelSearch.getThreadCount() != threads) {
+            if (this.parallelSearch != null) {
+                this.parallelSearch.shutdown();
+            }
+            this.parallelSearch = new LazySMP(searchDepth, threads, this.transpositionTable);
+        }
+        return this.parallelSearch;
+    }
+
     private Board getGameBoard() {
         return this.chessBoard;
     }
@@ -355,8 +375,13 @@ public class Table extends Observable {
         @Override
         protected Move doInBackground() throws Exception {
 
+            //a book move is played at once, no cache lookup and no search
+            final Move bookMove = Table.get().openingBook.getBookMove(Table.get().getGameBoard());
+            if (bookMove != null) {
+                return bookMove;
+            }
 
-            String currentBoard = FenUtilities.createFENFromGame(Table.get().chessBoard);
+            String currentBoard = FenUtilities.createPositionFENFromGame(Table.get().chessBoard);
 
             Connection c = null;
             Statement stmt = null;
@@ -374,16 +399,18 @@ public class Table extends Observable {
 
                     int depth = rs.getInt("DEPTH");
 
-                    if (depth >= Table.get().gameSetup.getSearchDepth()) {
+                    //the cached position may come from another game or move number, so only its move is taken,
+                    //it is played on this game's board to keep the clocks and the repetition history
+                    final Move cachedMove = depth >= Table.get().gameSetup.getSearchDepth() ?
+                            findCachedMove(Table.get().getGameBoard(), rs.getString("BESTSTATE")) : null;
+
+                    if (cachedMove != null) {
 
-                        Table.get().bestState = rs.getString("BESTSTATE");
                         rs.close();
                         stmt.close();
                         c.close();
                         Table.get().useTable = true;
-                        int minimaxDepth = 1;
-                        final MoveStrategy miniMax = new AlphaBeta(minimaxDepth);
-                        return miniMax.execute(Table.get().getGameBoard());
+                        return cachedMove;
 
                     } else {
 
@@ -391,7 +418,7 @@ public class Table extends Observable {
 
                         try {
                             stmt = c.createStatement();
-                            String sql = "DELETE from BESTCACHE where STATE='" + FenUtilities.createFENFromGame(Table.get().chessBoard) + "';";
+                            String sql = "DELETE from BESTCACHE where STATE='" + FenUtilities.createPositionFENFromGame(Table.get().chessBoard) + "';";
                             stmt.executeUpdate(sql);
                             c.commit();
                         } catch (Exception e) {
@@ -416,10 +443,23 @@ public class Table extends Observable {
 
             int minimaxDepth = Table.get().gameSetup.getSearchDepth();
 
-            final MoveStrategy miniMax = new AlphaBetaThreadTwo(minimaxDepth);
+            final MoveStrategy miniMax = Table.get().getParallelSearch(minimaxDepth);
+
+            return miniMax.execute(Table.get().getGameBoard(), Table.get().gameSetup.getTimeControl());
 
-            return miniMax.execute(Table.get().getGameBoard());
+        }
 
+        //the legal move from board that reaches the position stored in the cache, null if none does
+        private static Move findCachedMove(final Board board, final String bestState) {
+            final String cachedPosition = FenUtilities.createPositionFENFromGame(FenUtilities.createGameFromFEN(bestState));
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                final MoveTransition transition = board.currentPlayer().makeMove(move);
+                if (transition.getMoveStatus().isDone()
+                        && FenUtilities.createPositionFENFromGame(transition.getTransitionBoard()).equals(cachedPosition)) {
+                    return move;
+                }
+            }
+            return null;
         }
 
         @Override
@@ -430,7 +470,8 @@ public class Table extends Observable {
                 if (Table.get().useTable) {
 
                     final Move bestMove = get();
-                    Table.get().updateGameBoard(FenUtilities.createGameFromFEN(Table.get().bestState));
+                    Table.get().updateComputerMove(bestMove);
+                    Table.get().updateGameBoard(Table.get().getGameBoard().currentPlayer().makeMove(bestMove).getTransitionBoard());
                     Table.get().getMoveLog().addMove(bestMove);
                     Table.get().getGameHistoryPanel().redo(Table.get().getGameBoard(), Table.get().getMoveLog());
                     Table.get().getTakenPiecesPanel().redo(Table.get().getMoveLog());
@@ -446,7 +487,7 @@ public class Table extends Observable {
 
                     Table.get().updateComputerMove(bestMove);
 
-                    String oldBoard = FenUtilities.createFENFromGame(Table.get().chessBoard);
+                    String oldBoard = FenUtilities.createPositionFENFromGame(Table.get().chessBoard);
                     Board bestBoard = Table.get().getGameBoard().currentPlayer().makeMove(bestMove).getTransitionBoard();
                     String newBoard = FenUtilities.createFENFromGame(bestBoard);
 
@@ -16,11 +16,21 @@ public class FenUtilities {
     }
 
     public static String createFENFromGame(final Board board){
+        return calculatePositionText(board) + " " +
+                board.getHalfmoveClock() + " " +
+                board.getFullmoveNumber();
+    }
+
+    //the same position always gives the same string, whatever the move counters say
+    public static String createPositionFENFromGame(final Board board){
+        return calculatePositionText(board) + " 0 1";
+    }
+
+    private static String calculatePositionText(final Board board) {
         return calculateBoardText(board) + " " +
                 calculateCurrentPlayerText(board) + " " +
                 calculateCastleText(board) + " " +
-                calculateEnPassantSquare(board) + " " +
-                "0 1";
+                calculateEnPassantSquare(board);
     }
 
 
@@ -106,16 +116,23 @@ public class FenUtilities {
                     throw new RuntimeException("Invalid FEN String " +gameConfiguration);
             }
         }
-        builder.setMoveMaker(moveMaker(fenPartitions[1]));
+        final Alliance moveMaker = moveMaker(fenPartitions[1]);
+        builder.setMoveMaker(moveMaker);
+
+        //the move counters are optional, plenty of FEN strings stop after the en passant square
+        if (fenPartitions.length > 5) {
+            builder.setHalfmoveClock(Integer.parseInt(fenPartitions[4]));
+            builder.setFullmoveNumber(Integer.parseInt(fenPartitions[5]));
+        }
 
         final boolean en = calculateEnPassantBool(fenPartitions[3]);
         if (en){
 
-            System.out.println("FOUND EN PAWN" + fenPartitions[3]);
-
             Board returnBoard = builder.build();
-            //final int ens = calculateEnPassantSquare(fenPartitions[3]);
-            final Pawn enpawn = (Pawn)returnBoard.getTile(BoardUtils.POSITION_TO_COORDINATE.get(fenPartitions[3])).getPiece();
+            //the FEN names the tile the pawn jumped over, the pawn itself stands one tile further on
+            final int enPassantPawnCoordinate = BoardUtils.POSITION_TO_COORDINATE.get(fenPartitions[3])
+                    + (8 * moveMaker.getOpponent().getDirection());
+            final Pawn enpawn = (Pawn)returnBoard.getTile(enPassantPawnCoordinate).getPiece();
             builder.setEnPassantPawn(enpawn);
             return builder.build();
         }
@@ -0,0 +1,188 @@
+package com.chess.pgn;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtils;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.ai.OpeningBook;
+import com.chess.pgnParser.PGNParser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Builds an OpeningBook by replaying the first plies of pgn games.
+ *
+ * Each position reached is counted against the Zobrist key of the board, with the move played
+ * from it and whether the side that played it went on to win, draw or lose. A move weighs two for
+ * a win and one for a draw, so moves that only ever lost are kept for their counts but never played.
+ *
+ * A game is followed until a move in it cannot be matched to a legal move, the plies before still count.
+ *
+ * */
+
+public final class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLIES = 20;
+
+    private static final int WIN = 0;
+    private static final int DRAW = 1;
+    private static final int LOSS = 2;
+
+    private final int maxPlies;
+    //position key to packed move to wins, draws and losses of the side that played it
+    private final Map<Long, Map<Integer, int[]>> positions;
+    private int gameCount;
+    private int skippedCount;
+
+    public OpeningBookBuilder(final int maxPlies) {
+        this.maxPlies = maxPlies;
+        this.positions = new HashMap<>();
+    }
+
+    public int getGameCount() {
+        return this.gameCount;
+    }
+
+    public int getSkippedCount() {
+        return this.skippedCount;
+    }
+
+    public int getPositionCount() {
+        return this.positions.size();
+    }
+
+    public void addFile(final String path) throws Exception {
+        for(final String pgn : PGNParser.getPGNString(path)){
+            addGame(pgn);
+        }
+    }
+
+    //the move text of one game ending in its result, the way PGNParser splits a file
+    public boolean addGame(final String pgn) {
+
+        final String[] tokens = pgn.replaceAll("\\d+\\.+", " ").trim().split("\\s+");
+        final int whiteOutcome = outcome(tokens[tokens.length - 1]);
+        if(whiteOutcome < 0){
+            this.skippedCount++;
+            return false;
+        }
+
+        Board board = Board.createStandardBoard();
+        for(int ply = 0; ply < Math.min(this.maxPlies, tokens.length - 1); ply++){
+            final Move move = findMove(board, tokens[ply]);
+            if(move == null){
+                break;
+            }
+            final int outcome = board.currentPlayer().getAlliance().isWhite() ? whiteOutcome : LOSS - whiteOutcome;
+            this.positions.computeIfAbsent(board.getZobristKey(), key -> new HashMap<>())
+                    .computeIfAbsent(move.toPackedMove(), packedMove -> new int[3])[outcome]++;
+            board = board.currentPlayer().makeMove(move).getTransitionBoard();
+        }
+
+        this.gameCount++;
+        return true;
+    }
+
+    //sorted by key and the moves of a position by weight, the order OpeningBook searches
+    public int write(final Path file) throws IOException {
+
+        final List<BookLine> lines = new ArrayList<>();
+        for(final Map.Entry<Long, Map<Integer, int[]>> position : this.positions.entrySet()){
+            for(final Map.Entry<Integer, int[]> move : position.getValue().entrySet()){
+                lines.add(new BookLine(position.getKey(), move.getKey(), move.getValue()));
+            }
+        }
+        Collections.sort(lines);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(lines.size());
+            for(final BookLine line : lines){
+                out.writeLong(line.key);
+                out.writeInt(line.move);
+                out.writeInt(line.getWeight());
+                out.writeInt(line.results[WIN]);
+                out.writeInt(line.results[DRAW]);
+                out.writeInt(line.results[LOSS]);
+            }
+        }
+        return lines.size();
+    }
+
+    private static int outcome(final String result) {
+        switch (result) {
+            case "1-0":
+                return WIN;
+            case "1/2-1/2":
+                return DRAW;
+            case "0-1":
+                return LOSS;
+            default:
+                return -1;
+        }
+    }
+
+    //Move.toString() writes the same san as the games, only the check marks and annotations are left off
+    private static Move findMove(final Board board, final String token) {
+
+        final String san = stripSuffix(token);
+        final boolean castle = san.startsWith("O-O");
+        final int promotion = san.indexOf('=');
+        final String square = promotion > 0 ? san.substring(promotion - 2, promotion) :
+                san.length() >= 2 ? san.substring(san.length() - 2) : san;
+        final Integer destination = castle ? null : BoardUtils.POSITION_TO_COORDINATE.get(square);
+        if(!castle && destination == null){
+            return null;
+        }
+
+        for(final Move move : board.currentPlayer().getLegalMoves()){
+            if((castle ? move.isCastlingMove() : move.getDestinationCoordinate() == destination)
+                    && stripSuffix(move.toString()).equals(san)
+                    && board.currentPlayer().makeMove(move).getMoveStatus().isDone()){
+                return move;
+            }
+        }
+        return null;
+    }
+
+    private static String stripSuffix(final String san) {
+        int end = san.length();
+        while(end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0){
+            end--;
+        }
+        return san.substring(0, end);
+    }
+
+    private static final class BookLine implements Comparable<BookLine> {
+
+        private final long key;
+        private final int move;
+        private final int[] results;
+
+        BookLine(final long key, final int move, final int[] results) {
+            this.key = key;
+            this.move = move;
+            this.results = results;
+        }
+
+        int getWeight() {
+            return 2 * this.results[WIN] + this.results[DRAW];
+        }
+
+        @Override
+        public int compareTo(final BookLine other) {
+            final int byKey = Long.compare(this.key, other.key);
+            return byKey != 0 ? byKey : Integer.compare(other.getWeight(), getWeight());
+        }
+    }
+
+}
@@ -1,13 +1,31 @@
 package com.tests.chess.engine.board;
 
+import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.BoardUtils;
 import com.chess.engine.board.Move;
+import com.chess.engine.board.MoveList;
+import com.chess.engine.board.PackedMove;
+import com.chess.engine.board.Perft;
+import com.chess.engine.board.SearchBoard;
+import com.chess.engine.board.StaticExchange;
+import com.chess.engine.board.Zobrist;
 import com.chess.engine.player.MoveTransition;
+import com.chess.engine.player.ai.BitbaseGenerator;
+import com.chess.engine.player.ai.EndgameMaterial;
+import com.chess.engine.player.ai.OpeningBook;
 import com.chess.engine.player.ai.MiniMax;
 import com.chess.engine.player.ai.MoveStrategy;
+import com.chess.engine.pieces.Piece;
+import com.chess.pgn.FenUtilities;
+import com.chess.pgn.OpeningBookBuilder;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class TestBoard {
@@ -71,7 +89,193 @@ public class TestBoard {
 
     }
 
+    @Test
+    public void testRepetitionAndMoveCounters(){
+
+        Board board = Board.createStandardBoard();
+        final String[][] knightDance = {{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}};
+        for(final String[] move : knightDance){
+            assertFalse(board.isRepetition());
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition(move[0]), BoardUtils.getCoordinateAtPosition(move[1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getTransitionBoard();
+        }
+
+        assertTrue(board.isRepetition());
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 4 3", FenUtilities.createFENFromGame(board));
+
+        //a pawn move can never be taken back, so it clears the clock and the history
+        final Board pawnMoved = board.currentPlayer()
+                .makeMove(Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition("e2"), BoardUtils.getCoordinateAtPosition("e4")))
+                .getTransitionBoard();
+        assertFalse(pawnMoved.isRepetition());
+        assertEquals(0, pawnMoved.getHalfmoveClock());
+        assertEquals(3, pawnMoved.getFullmoveNumber());
+
+        final String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 7 23";
+        assertEquals(fen, FenUtilities.createFENFromGame(FenUtilities.createGameFromFEN(fen)));
+
+    }
+
+    @Test
+    public void testPerftSuite(){
+
+        for(final Perft.PerftPosition position : Perft.STANDARD_SUITE){
+            final Board board = FenUtilities.createGameFromFEN(position.getFen());
+            for(int depth = 1; depth <= 3; depth++){
+                assertEquals(position.getName() + " depth " + depth, position.getNodeCount(depth), Perft.perft(board, depth));
+            }
+        }
+
+    }
+
+    @Test
+    public void testMakeUnmakeMove(){
+
+        //moves counted by flag, promotions in the last slot, to be sure the suite gets to castling, en passant and promotion
+        final int[] flagCounts = new int[PackedMove.EN_PASSANT + 2];
+        for(final Perft.PerftPosition position : Perft.STANDARD_SUITE){
+            final SearchBoard board = new SearchBoard(FenUtilities.createGameFromFEN(position.getFen()));
+            assertEquals(Zobrist.calculateKey(board), board.getZobristKey());
+            assertEquals(position.getName(), position.getNodeCount(3), walk(board, 3, flagCounts));
+            assertEquals(0, board.getPly());
+        }
+        assertTrue(flagCounts[PackedMove.KING_SIDE_CASTLE] > 0);
+        assertTrue(flagCounts[PackedMove.QUEEN_SIDE_CASTLE] > 0);
+        assertTrue(flagCounts[PackedMove.EN_PASSANT] > 0);
+        assertTrue(flagCounts[PackedMove.EN_PASSANT + 1] > 0);
+
+    }
+
+    //every move made is checked against a key computed from scratch, and unmade back to the exact same state
+    private static long walk(final SearchBoard board, final int depth, final int[] flagCounts){
+
+        if(depth == 0){
+            return 1;
+        }
+
+        final String before = positionState(board);
+        final MoveList moves = board.generateMoves();
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            final int move = moves.get(i);
+            flagCounts[PackedMove.isPromotion(move) ? PackedMove.EN_PASSANT + 1 : PackedMove.getFlag(move)]++;
+
+            board.makeMove(move);
+            assertEquals(PackedMove.toString(move), Zobrist.calculateKey(board), board.getZobristKey());
+            nodes += walk(board, depth - 1, flagCounts);
+            board.unmakeMove();
+
+            assertEquals(PackedMove.toString(move), before, positionState(board));
+        }
+        return nodes;
+    }
+
+    private static String positionState(final SearchBoard board){
+        final StringBuilder state = new StringBuilder();
+        for(final Alliance alliance : Alliance.values()){
+            for(final Piece.PieceType pieceType : Piece.PieceType.values()){
+                state.append(Long.toHexString(board.getPieceBitBoard(alliance, pieceType))).append(' ');
+            }
+            state.append(board.isCastled(alliance)).append(' ');
+        }
+        for(int i = 0; i < BoardUtils.NUM_TILES; i++){
+            state.append(board.getPieceType(i)).append(' ');
+        }
+        return state.append(board.getMoveMaker()).append(' ')
+                .append(board.getCastlingRights()).append(' ')
+                .append(board.getEnPassantSquare()).append(' ')
+                .append(board.getHalfmoveClock()).append(' ')
+                .append(board.getPly()).append(' ')
+                .append(Long.toHexString(board.getZobristKey())).toString();
+    }
+
+    @Test
+    public void testKpkBitbase(){
+
+        final BitbaseGenerator generator = new BitbaseGenerator(2);
+        try {
+            final long[] bits = generator.generate(EndgameMaterial.KPK);
+            final int placements = EndgameMaterial.KPK.getPlacementCount();
+            //the published counts of won positions with white and black to move
+            assertEquals(124960, BitbaseGenerator.countWins(bits, 0, placements));
+            assertEquals(97604, BitbaseGenerator.countWins(bits, placements, 2 * placements));
+        } finally {
+            generator.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testOpeningBook() throws IOException {
+
+        final OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLIES);
+        assertTrue(builder.addGame("1.e4 e5 2.Nf3 Nc6 3.Bb5 a6 1-0\n"));
+        assertTrue(builder.addGame("1.e4 c5 2.Nf3 d6 0-1\n"));
+        assertTrue(builder.addGame("1.d4 d5 2.c4 e6 1/2-1/2\n"));
+        assertFalse(builder.addGame("1.e4 e5 *\n"));
+
+        final Path file = Files.createTempFile("book", ".bin");
+        try {
+            assertEquals(13, builder.write(file));
+            final OpeningBook book = OpeningBook.open(file);
+            final Board board = Board.createStandardBoard();
+
+            //e4 won once and lost once, d4 drew
+            final List<OpeningBook.Entry> entries = book.getEntries(board.getZobristKey());
+            assertEquals(2, entries.size());
+            assertEquals("e2e4", PackedMove.toString(entries.get(0).getMove()));
+            assertEquals(2, entries.get(0).getWeight());
+            assertEquals(1, entries.get(0).getWins());
+            assertEquals(1, entries.get(0).getLosses());
+            assertEquals(1, entries.get(1).getDraws());
+
+            final Move bookMove = book.getBookMove(board);
+            assertNotNull(bookMove);
+            assertTrue(board.currentPlayer().getLegalMoves().contains(bookMove));
+
+            final Board afterBookMove = board.currentPlayer().makeMove(bookMove).getTransitionBoard();
+            final Board afterH4 = board.currentPlayer().makeMove(Move.MoveFactory.createMove(board,
+                    BoardUtils.getCoordinateAtPosition("h2"), BoardUtils.getCoordinateAtPosition("h4"))).getTransitionBoard();
+            assertNotNull(book.getBookMove(afterBookMove));
+            assertNull(book.getBookMove(afterH4));
+        } finally {
+            Files.delete(file);
+        }
+
+    }
+
+    @Test
+    public void testStaticExchange(){
+
+        //a pawn defended by a pawn takes a knight defended by a pawn, and is taken back
+        assertEquals(200, exchange("4k3/8/2p5/3n4/4P3/5P2/8/4K3 w - - 0 1", "e4", "d5"));
+        //a queen takes a pawn defended by a pawn
+        assertEquals(-800, exchange("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", "d2", "d5"));
+        //the rooks behind the ones that take first join in, rook for queen then rook for rook
+        assertEquals(400, exchange("3rk3/3r4/8/3q4/8/8/3R4/3RK3 w - - 0 1", "d2", "d5"));
+        assertEquals(900, exchange("4k3/8/8/3q4/8/8/3R4/3RK3 w - - 0 1", "d2", "d5"));
+        //en passant wins the pawn that is not on the tile moved to
+        assertEquals(100, exchange("4k3/8/8/2pP4/8/8/8/4K3 w - c6 0 1", "d5", "c6"));
+        assertEquals(0, exchange("4k3/1q6/8/2pP4/8/8/8/4K3 w - c6 0 1", "d5", "c6"));
+
+        //the move orderer and the quiescence search only ask whether a capture loses
+        final Board board = FenUtilities.createGameFromFEN("4k3/8/2p5/3n4/4P3/5P2/3Q4/4K3 w - - 0 1");
+        assertFalse(StaticExchange.isLosing(new SearchBoard(board), packedMove(board, "e4", "d5")));
+        assertTrue(StaticExchange.isLosing(new SearchBoard(board), packedMove(board, "d2", "d5")));
+
+    }
 
+    private static int exchange(final String fen, final String from, final String to){
+        final Board board = FenUtilities.createGameFromFEN(fen);
+        return StaticExchange.evaluate(new SearchBoard(board), packedMove(board, from, to));
+    }
 
+    private static int packedMove(final Board board, final String from, final String to){
+        final Move move = Move.MoveFactory.createMove(board, BoardUtils.getCoordinateAtPosition(from), BoardUtils.getCoordinateAtPosition(to));
+        assertNotSame(Move.NULL_MOVE, move);
+        return move.toPackedMove();
+    }
 
-}
\ No newline at end of file
+}